@@ -48,6 +48,20 @@ CREATE INDEX idx_customers_person_id ON public.customers USING btree (person_id)
 
 ALTER TABLE public.customers ADD CONSTRAINT customers_person_id_fkey FOREIGN KEY (person_id) REFERENCES public.persons(id) ON DELETE CASCADE;
 
+-- Tabla: customer_event_outbox
+-- Descripción: Eventos de clientes pendientes de publicar en Kafka (customer-events)
+-- Se escriben en la misma transacción que el cambio del cliente; el relay los publica y los borra
+-- public.customer_event_outbox definition
+
+CREATE TABLE public.customer_event_outbox (
+	id bigserial NOT NULL,
+	customer_id int8 NOT NULL,
+	event_type varchar(20) NOT NULL,
+	payload text NOT NULL,
+	created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	CONSTRAINT customer_event_outbox_pkey PRIMARY KEY (id)
+);
+
 -- =====================================================
 -- ESQUEMA: Account Service Database
 -- =====================================================
@@ -75,6 +89,7 @@ CREATE INDEX idx_accounts_customer_id ON public.accounts USING btree (customer_i
 
 -- Tabla: movements
 -- Descripción: Almacena los movimientos (transacciones) de las cuentas
+-- Particionada por rango mensual de movement_date (particiones movements_YYYY_MM)
 -- public.movements definition
 
 
@@ -87,17 +102,120 @@ CREATE TABLE public.movements (
 	balance numeric(19, 2) NOT NULL,
 	created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
 	CONSTRAINT movements_movement_type_check CHECK (((movement_type)::text = ANY ((ARRAY['DEBIT'::character varying, 'CREDIT'::character varying])::text[]))),
-	CONSTRAINT movements_pkey PRIMARY KEY (id),
+	CONSTRAINT movements_pkey PRIMARY KEY (id, movement_date),
 	CONSTRAINT movements_value_check CHECK ((value > (0)::numeric))
-);
-CREATE INDEX idx_movements_account_id ON public.movements USING btree (account_id);
-CREATE INDEX idx_movements_date ON public.movements USING btree (movement_date);
+) PARTITION BY RANGE (movement_date);
+CREATE INDEX idx_movements_account_date ON public.movements USING btree (account_id, movement_date, id);
+CREATE INDEX idx_movements_date ON public.movements USING btree (movement_date, id);
+
+-- Partición por defecto: movimientos con fecha fuera de las particiones mensuales creadas
+CREATE TABLE public.movements_default PARTITION OF public.movements DEFAULT;
+
+-- Crea la partición mensual que contiene la fecha indicada, trasladando las filas de ese mes que estén
+-- en la partición por defecto
+CREATE OR REPLACE FUNCTION public.create_movements_partition(month date) RETURNS text AS $$
+DECLARE
+	partition_start date := date_trunc('month', month)::date;
+	partition_end date := (partition_start + INTERVAL '1 month')::date;
+	partition_name text := 'movements_' || to_char(partition_start, 'YYYY_MM');
+BEGIN
+	IF to_regclass('public.' || partition_name) IS NULL THEN
+		EXECUTE format('CREATE TABLE public.%I (LIKE public.movements INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+		EXECUTE format('WITH moved AS (DELETE FROM public.movements_default WHERE movement_date >= %L AND movement_date < %L RETURNING *) '
+					   'INSERT INTO public.%I SELECT * FROM moved', partition_start, partition_end, partition_name);
+		EXECUTE format('ALTER TABLE public.movements ATTACH PARTITION public.%I FOR VALUES FROM (%L) TO (%L)',
+					   partition_name, partition_start, partition_end);
+	END IF;
+	RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT public.create_movements_partition((date_trunc('month', CURRENT_DATE) + n * INTERVAL '1 month')::date)
+FROM generate_series(0, 3) AS n;
 
 
 -- public.movements foreign keys
 
 ALTER TABLE public.movements ADD CONSTRAINT movements_account_id_fkey FOREIGN KEY (account_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
 
+-- Tabla: movement_idempotency_keys
+-- Descripción: Claves Idempotency-Key de los movimientos registrados (evita débitos duplicados en reintentos)
+
+CREATE TABLE public.movement_idempotency_keys (
+	idempotency_key varchar(100) NOT NULL,
+	movement_id int8 NOT NULL,
+	movement_date timestamp NOT NULL,
+	created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	CONSTRAINT movement_idempotency_keys_pkey PRIMARY KEY (idempotency_key)
+);
+CREATE INDEX idx_movement_idempotency_keys_created_at ON public.movement_idempotency_keys USING btree (created_at);
+
+-- Tabla: account_balance_checkpoints
+-- Descripción: Saldo de cada cuenta al cierre del día (punto de partida para consultar el saldo a una fecha)
+
+CREATE TABLE public.account_balance_checkpoints (
+	account_id int8 NOT NULL,
+	checkpoint_date date NOT NULL,
+	balance numeric(19, 2) NOT NULL,
+	created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	CONSTRAINT account_balance_checkpoints_pkey PRIMARY KEY (account_id, checkpoint_date)
+);
+
+ALTER TABLE public.account_balance_checkpoints ADD CONSTRAINT account_balance_checkpoints_account_id_fkey FOREIGN KEY (account_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
+
+-- Tabla: customer_projections
+-- Descripción: Copia local del nombre y estado de cada cliente, mantenida desde los eventos de customer-service
+
+CREATE TABLE public.customer_projections (
+	customer_id int8 NOT NULL,
+	"name" varchar(255) NULL,
+	status bool NULL,
+	deleted bool DEFAULT false NOT NULL,
+	event_timestamp int8 DEFAULT 0 NOT NULL,
+	updated_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	CONSTRAINT customer_projections_pkey PRIMARY KEY (customer_id)
+);
+
+-- Tabla: customer_projection_state
+-- Descripción: Cargas de customer_projections ya completadas (la fila 'bootstrap' marca la carga inicial)
+
+CREATE TABLE public.customer_projection_state (
+	"name" varchar(50) NOT NULL,
+	completed_at timestamp NOT NULL,
+	CONSTRAINT customer_projection_state_pkey PRIMARY KEY (name)
+);
+
+-- Tabla: customer_event_dead_letters
+-- Descripción: Eventos de customer-events que no se pudieron aplicar a customer_projections tras los reintentos
+
+CREATE TABLE public.customer_event_dead_letters (
+	topic varchar(255) NOT NULL,
+	partition_number int4 NOT NULL,
+	record_offset int8 NOT NULL,
+	customer_id int8 NULL,
+	event_type varchar(20) NULL,
+	"name" varchar(255) NULL,
+	status bool NULL,
+	event_timestamp int8 NULL,
+	error text NULL,
+	created_at timestamp DEFAULT CURRENT_TIMESTAMP NOT NULL,
+	CONSTRAINT customer_event_dead_letters_pkey PRIMARY KEY (topic, partition_number, record_offset)
+);
+
+-- Tabla: account_daily_rollups
+-- Descripción: Créditos, débitos y cantidad de movimientos de cada cuenta por día (resumen de estado de cuenta)
+
+CREATE TABLE public.account_daily_rollups (
+	account_id int8 NOT NULL,
+	rollup_date date NOT NULL,
+	total_credits numeric(19, 2) DEFAULT 0 NOT NULL,
+	total_debits numeric(19, 2) DEFAULT 0 NOT NULL,
+	movement_count int4 DEFAULT 0 NOT NULL,
+	CONSTRAINT account_daily_rollups_pkey PRIMARY KEY (account_id, rollup_date)
+);
+
+ALTER TABLE public.account_daily_rollups ADD CONSTRAINT account_daily_rollups_account_id_fkey FOREIGN KEY (account_id) REFERENCES public.accounts(id) ON DELETE CASCADE;
+
 -- =====================================================
 -- ÍNDICES
 -- =====================================================
@@ -112,5 +230,5 @@ CREATE UNIQUE INDEX persons_pkey ON public.persons USING btree (id);
 -- Índices para Account Service
 CREATE INDEX IF NOT EXISTS idx_accounts_customer_id ON accounts(customer_id);
 CREATE INDEX IF NOT EXISTS idx_accounts_account_number ON accounts(account_number);
-CREATE INDEX IF NOT EXISTS idx_movements_account_id ON movements(account_id);
-CREATE INDEX IF NOT EXISTS idx_movements_date ON movements(movement_date);
+CREATE INDEX IF NOT EXISTS idx_movements_account_date ON movements(account_id, movement_date, id);
+CREATE INDEX IF NOT EXISTS idx_movements_date ON movements(movement_date, id);
@@ -0,0 +1,74 @@
+package org.example.accountservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.util.concurrent.EventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detector de bloqueos del event loop de Netty: periódicamente encola una tarea vacía en cada hilo del
+ * servidor y mide cuánto tarda en ejecutarse (timer event.loop.lag). Si la sonda anterior de un hilo
+ * sigue pendiente o el retraso supera el umbral, se registra un warning con el hilo afectado.
+ */
+@Slf4j
+@Component
+public class EventLoopLagMonitor {
+    
+    private final ReactorResourceFactory resourceFactory;
+    private final MeterRegistry meterRegistry;
+    private final long thresholdNanos;
+    private final Map<Integer, Timer> timers = new ConcurrentHashMap<>();
+    // Momento en que se encoló la sonda que todavía no se ejecutó, por hilo
+    private final Map<EventExecutor, Long> pendingProbes = new ConcurrentHashMap<>();
+    
+    public EventLoopLagMonitor(ReactorResourceFactory resourceFactory,
+                               MeterRegistry meterRegistry,
+                               @Value("${event-loop.monitor.threshold:100ms}") Duration threshold) {
+        this.resourceFactory = resourceFactory;
+        this.meterRegistry = meterRegistry;
+        this.thresholdNanos = threshold.toNanos();
+    }
+    
+    @Scheduled(fixedRateString = "${event-loop.monitor.interval:PT1S}")
+    public void probe() {
+        int index = 0;
+        for (EventExecutor eventLoop : resourceFactory.getLoopResources().onServer(LoopResources.DEFAULT_NATIVE)) {
+            int loop = index++;
+            long now = System.nanoTime();
+            Long pendingSince = pendingProbes.get(eventLoop);
+            if (pendingSince != null) {
+                long blockedNanos = now - pendingSince;
+                if (blockedNanos > thresholdNanos) {
+                    log.warn("Event loop {} has been blocked for at least {} ms", eventLoop, TimeUnit.NANOSECONDS.toMillis(blockedNanos));
+                }
+                continue;
+            }
+            pendingProbes.put(eventLoop, now);
+            eventLoop.execute(() -> {
+                long lagNanos = System.nanoTime() - now;
+                pendingProbes.remove(eventLoop);
+                timerFor(loop).record(lagNanos, TimeUnit.NANOSECONDS);
+                if (lagNanos > thresholdNanos) {
+                    log.warn("Event loop {} lag of {} ms", eventLoop, TimeUnit.NANOSECONDS.toMillis(lagNanos));
+                }
+            });
+        }
+    }
+    
+    private Timer timerFor(int loop) {
+        return timers.computeIfAbsent(loop, index -> Timer.builder("event.loop.lag")
+                .tag("loop", String.valueOf(index))
+                .publishPercentiles(0.99)
+                .register(meterRegistry));
+    }
+}
@@ -6,9 +6,11 @@ import org.example.accountservice.dto.CustomerEventDto;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import reactor.kafka.receiver.ReceiverOptions;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,18 +24,31 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
     
+    // Los offsets confirmados se envían juntos cada commit-batch-size registros o cada commit-interval
     @Bean
-    public ReceiverOptions<String, CustomerEventDto> kafkaReceiverOptions() {
+    public ReceiverOptions<String, CustomerEventDto> kafkaReceiverOptions(
+            @Value("${customer.events.consumer.commit-batch-size:100}") int commitBatchSize,
+            @Value("${customer.events.consumer.commit-interval:1s}") Duration commitInterval) {
+        return ReceiverOptions.<String, CustomerEventDto>create(consumerProperties(bootstrapServers, groupId))
+                .commitBatchSize(commitBatchSize)
+                .commitInterval(commitInterval)
+                .subscription(List.of("customer-events"));
+    }
+    
+    public static Map<String, Object> consumerProperties(String bootstrapServers, String groupId) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        // Un mensaje que no se puede deserializar llega con valor null en lugar de detener el consumidor
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        // customer-service publica con el header __TypeId__ de su propio CustomerEventDto, que aquí no existe:
+        // se ignora el header y siempre se lee como el CustomerEventDto de account-service
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, CustomerEventDto.class);
+        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        
-        return ReceiverOptions.<String, CustomerEventDto>create(props)
-                .subscription(List.of("customer-events"));
+        return props;
     }
 }
-
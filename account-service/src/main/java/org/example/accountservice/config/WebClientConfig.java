@@ -1,24 +1,72 @@
 package org.example.accountservice.config;
 
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Configuration
 public class WebClientConfig {
     
+    // Las métricas de Reactor Netty se etiquetan por URI: los ids se reemplazan para no crear una serie por cliente
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+");
+    
     @Value("${customer.service.url:http://localhost:8080}")
     private String customerServiceUrl;
     
+    // Pool propio para customer-service con métricas (reactor.netty.connection.provider.*) y tiempos acotados:
+    // una conexión o respuesta lenta falla pronto y el cliente aplica la degradación
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider customerServiceConnectionProvider(
+            @Value("${customer.client.pool.max-connections:50}") int maxConnections,
+            @Value("${customer.client.pool.pending-acquire-max-count:200}") int pendingAcquireMaxCount,
+            @Value("${customer.client.pool.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${customer.client.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${customer.client.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${customer.client.pool.evict-interval:30s}") Duration evictInterval) {
+        log.info("Configuring customer service connection pool with {} connections and {} pending acquires",
+                maxConnections, pendingAcquireMaxCount);
+        return ConnectionProvider.builder("customer-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+    
     @Bean
-    public WebClient customerServiceWebClient() {
+    public WebClient customerServiceWebClient(
+            ConnectionProvider customerServiceConnectionProvider,
+            @Value("${customer.client.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${customer.client.response-timeout:2s}") Duration responseTimeout,
+            @Value("${customer.client.http2:false}") boolean http2) {
         log.info("Configuring WebClient for Customer Service with URL: {}", customerServiceUrl);
+        HttpClient httpClient = HttpClient.create(customerServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .keepAlive(true)
+                .metrics(true, uri -> NUMERIC_SEGMENT.matcher(uri.split("\\?", 2)[0]).replaceAll("/{id}"));
+        if (http2) {
+            // HTTP/2 sin TLS (h2c) con upgrade desde HTTP/1.1 si customer-service no lo soporta
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
         return WebClient.builder()
                 .baseUrl(customerServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
 }
-
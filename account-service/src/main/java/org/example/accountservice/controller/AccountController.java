@@ -8,15 +8,21 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.AccountBalanceDto;
 import org.example.accountservice.dto.AccountDto;
 import org.example.accountservice.dto.AccountUpdateDto;
 import org.example.accountservice.service.AccountService;
+import org.example.accountservice.service.BalanceCheckpointService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/accounts")
@@ -25,6 +31,7 @@ import reactor.core.publisher.Mono;
 public class AccountController {
     
     private final AccountService accountService;
+    private final BalanceCheckpointService balanceCheckpointService;
     
     @PostMapping
     @Operation(summary = "Create a new account", description = "Creates a new account")
@@ -52,8 +59,23 @@ public class AccountController {
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     
-    @GetMapping
-    @Operation(summary = "Get all accounts", description = "Retrieves all accounts")
+    @GetMapping("/{id}/balance")
+    @Operation(summary = "Get account balance as of a date", description = "Returns the account balance at the given date and time (defaults to now)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Balance calculated"),
+            @ApiResponse(responseCode = "404", description = "Account not found")
+    })
+    public Mono<ResponseEntity<AccountBalanceDto>> getBalanceAsOf(
+            @Parameter(description = "Account ID") @PathVariable Long id,
+            @Parameter(description = "Date and time (yyyy-MM-ddTHH:mm:ss)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        log.info("GET /api/v1/accounts/{}/balance - Fetching balance as of {}", id, asOf);
+        return balanceCheckpointService.getBalanceAsOf(id, asOf != null ? asOf : LocalDateTime.now())
+                .map(ResponseEntity::ok);
+    }
+    
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Get all accounts", description = "Retrieves all accounts. Send Accept: application/x-ndjson or text/event-stream to stream them one by one")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Accounts retrieved successfully")
     })
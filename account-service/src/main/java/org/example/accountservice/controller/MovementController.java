@@ -8,7 +8,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.MovementBatchResultDto;
 import org.example.accountservice.dto.MovementDto;
+import org.example.accountservice.dto.MovementPageDto;
+import org.example.accountservice.service.MovementBatchService;
 import org.example.accountservice.service.MovementService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/movements")
@@ -24,6 +29,7 @@ import reactor.core.publisher.Mono;
 public class MovementController {
     
     private final MovementService movementService;
+    private final MovementBatchService movementBatchService;
     
     @PostMapping
     @Operation(summary = "Create a new movement", description = "Creates a new movement (DEBIT or CREDIT)")
@@ -31,9 +37,12 @@ public class MovementController {
             @ApiResponse(responseCode = "201", description = "Movement created successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input data or insufficient balance")
     })
-    public Mono<ResponseEntity<MovementDto>> createMovement(@Valid @RequestBody MovementDto movementDto) {
+    public Mono<ResponseEntity<MovementDto>> createMovement(
+            @Valid @RequestBody MovementDto movementDto,
+            @Parameter(description = "Client-generated key; retries with the same key return the original movement")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         log.info("POST /api/v1/movements - Creating movement");
-        return movementService.createMovement(movementDto)
+        return movementService.createMovement(movementDto, idempotencyKey)
                 .map(movement -> ResponseEntity.status(HttpStatus.CREATED).body(movement))
                 .onErrorResume(error -> {
                     if (error.getMessage() != null && error.getMessage().contains("Saldo no disponible")) {
@@ -44,6 +53,19 @@ public class MovementController {
                 });
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Create movements in batch", 
+               description = "Creates many movements at once. Movements are grouped by account and applied in order; each item reports its own success or error (e.g. Saldo no disponible)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+    })
+    public Mono<ResponseEntity<MovementBatchResultDto>> createMovements(@RequestBody List<MovementDto> movements) {
+        log.info("POST /api/v1/movements/batch - Creating {} movements", movements.size());
+        return movementBatchService.createMovements(movements)
+                .map(ResponseEntity::ok);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get movement by ID", description = "Retrieves a movement by its ID")
     @ApiResponses(value = {
@@ -68,6 +90,20 @@ public class MovementController {
         return Mono.just(ResponseEntity.ok(movementService.getAllMovements()));
     }
     
+    @GetMapping(params = "limit")
+    @Operation(summary = "Get movements page", description = "Retrieves movements newest first, one page at a time. Pass next_cursor as 'after' to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movements page retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    public Mono<ResponseEntity<MovementPageDto>> getMovementsPage(
+            @Parameter(description = "Cursor returned as next_cursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size (1-1000)") @RequestParam int limit) {
+        log.info("GET /api/v1/movements?limit={} - Fetching movements page", limit);
+        return movementService.getMovementsPage(after, limit)
+                .map(ResponseEntity::ok);
+    }
+    
     @GetMapping("/account/{accountId}")
     @Operation(summary = "Get movements by account ID", description = "Retrieves all movements for a specific account")
     @ApiResponses(value = {
@@ -79,6 +115,21 @@ public class MovementController {
         return Mono.just(ResponseEntity.ok(movementService.getMovementsByAccountId(accountId)));
     }
     
+    @GetMapping(value = "/account/{accountId}", params = "limit")
+    @Operation(summary = "Get movements page by account ID", description = "Retrieves the movements of an account newest first, one page at a time. Pass next_cursor as 'after' to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Movements page retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    public Mono<ResponseEntity<MovementPageDto>> getMovementsPageByAccountId(
+            @Parameter(description = "Account ID") @PathVariable Long accountId,
+            @Parameter(description = "Cursor returned as next_cursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size (1-1000)") @RequestParam int limit) {
+        log.info("GET /api/v1/movements/account/{}?limit={} - Fetching movements page for account", accountId, limit);
+        return movementService.getMovementsPageByAccountId(accountId, after, limit)
+                .map(ResponseEntity::ok);
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update movement", description = "Updates an existing movement")
     @ApiResponses(value = {
@@ -1,21 +1,35 @@
 package org.example.accountservice.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.AccountSummaryDto;
 import org.example.accountservice.dto.MovementReportDto;
+import org.example.accountservice.dto.ReportJobDto;
+import org.example.accountservice.dto.ReportJobRequestDto;
+import org.example.accountservice.service.ReportJobService;
 import org.example.accountservice.service.ReportService;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,46 +40,188 @@ import java.util.List;
 @Tag(name = "Report Controller", description = "API for generating reports")
 public class ReportController {
     
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final String EXCEL_MEDIA_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
+    private final ObjectMapper objectMapper;
     
     @GetMapping("/{client-id}")
     @Operation(summary = "Generate account statement", 
-               description = "Generates an account statement for a client within a date range. Returns a flat list of movements with all account details. Supports JSON and Excel formats. Shows ALL accounts of the client with their movements.")
+               description = "Generates an account statement for a client within a date range. Returns a flat list of movements with all account details. Supports JSON, Excel, CSV and NDJSON formats (format parameter or Accept header). CSV and NDJSON rows are streamed as they are read. Shows ALL accounts of the client with their movements.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Report generated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid parameters"),
             @ApiResponse(responseCode = "404", description = "Client not found")
     })
-    public Mono<ResponseEntity<?>> generateAccountStatement(
+    public Mono<ResponseEntity<Flux<DataBuffer>>> generateAccountStatement(
             @Parameter(description = "Client ID") @PathVariable("client-id") Long clientId,
             @Parameter(description = "Start date (yyyy-MM-ddTHH:mm:ss)") 
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @Parameter(description = "End date (yyyy-MM-ddTHH:mm:ss)") 
             @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-            @Parameter(description = "Response format: json or excel") 
-            @RequestParam(value = "format", defaultValue = "json") String format) {
+            @Parameter(description = "Response format: json, excel, csv or ndjson. When omitted, it is taken from the Accept header (default json)") 
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServerHttpResponse response) {
         
+        String resolvedFormat = resolveFormat(format, accept);
         log.info("GET /reports/{} - Generating account statement from {} to {} in format {}", 
-                clientId, startDate, endDate, format);
+                clientId, startDate, endDate, resolvedFormat);
         
-        if ("excel".equalsIgnoreCase(format)) {
-            return reportService.generateAccountStatementExcel(clientId, startDate, endDate)
-                    .map(excelBytes -> {
-                        String filename = "estado_cuenta_cliente_" + clientId + "_" + 
-                                LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
-                        return ResponseEntity.ok()
-                                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                                .header(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                                .body(excelBytes);
-                    });
+        if ("excel".equals(resolvedFormat)) {
+            String filename = "estado_cuenta_cliente_" + clientId + "_" + 
+                    LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+            return Mono.just(ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .header(HttpHeaders.CONTENT_TYPE, EXCEL_MEDIA_TYPE)
+                    .body(reportService.streamAccountStatementExcel(clientId, startDate, endDate, response.bufferFactory())));
+        } else if ("csv".equals(resolvedFormat)) {
+            String filename = "estado_cuenta_cliente_" + clientId + "_" + 
+                    LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv";
+            return Mono.just(ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(TEXT_CSV)
+                    .body(reportService.streamAccountStatementCsv(clientId, startDate, endDate)
+                            .map(line -> response.bufferFactory().wrap(line.getBytes(StandardCharsets.UTF_8)))));
+        } else if ("ndjson".equals(resolvedFormat)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(reportService.streamMovementReport(clientId, startDate, endDate)
+                            .map(movement -> toBuffer(response, movement, true))));
         } else {
             return reportService.generateAccountStatement(clientId, startDate, endDate)
                     .map(report -> ResponseEntity.ok()
-                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                            .body(report));
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(Flux.just(toBuffer(response, report, false))));
         }
     }
     
+    // Todos los formatos se escriben como DataBuffers: con un cuerpo de tipo genérico (ResponseEntity<?>)
+    // WebFlux no encuentra encoder para Excel ni CSV
+    private DataBuffer toBuffer(ServerHttpResponse response, Object value, boolean newline) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            DataBuffer buffer = response.bufferFactory().allocateBuffer(json.length + 1);
+            buffer.write(json);
+            if (newline) {
+                buffer.write((byte) '\n');
+            }
+            return buffer;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize account statement", e);
+        }
+    }
+    
+    // El parámetro format tiene prioridad; si no viene se usa el primer tipo soportado del header Accept
+    private String resolveFormat(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            return format.toLowerCase();
+        }
+        if (accept != null) {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                    continue;
+                }
+                if (mediaType.isCompatibleWith(TEXT_CSV)) {
+                    return "csv";
+                }
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+                    return "ndjson";
+                }
+                if (mediaType.isCompatibleWith(MediaType.parseMediaType(EXCEL_MEDIA_TYPE))) {
+                    return "excel";
+                }
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return "json";
+                }
+            }
+        }
+        return "json";
+    }
+    
+    @PostMapping("/jobs")
+    @Operation(summary = "Queue an account statement job", 
+               description = "Queues the generation of an account statement (json, ndjson, csv or excel) and returns immediately with the job ID. Poll GET /reports/jobs/{job-id} and download the result when the status is COMPLETED.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Report job queued"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters"),
+            @ApiResponse(responseCode = "429", description = "Too many report jobs in progress for the client"),
+            @ApiResponse(responseCode = "503", description = "Report job queue is full")
+    })
+    public Mono<ResponseEntity<ReportJobDto>> createReportJob(@Valid @RequestBody ReportJobRequestDto request) {
+        log.info("POST /reports/jobs - Queuing report job for client {} in format {}", request.getClientId(), request.getFormat());
+        return Mono.fromCallable(() -> reportJobService.submit(request))
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/reports/jobs/" + job.getJobId()))
+                        .body(job));
+    }
+    
+    @GetMapping("/jobs/{job-id}")
+    @Operation(summary = "Get report job status", description = "Returns the status of a report job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Report job found"),
+            @ApiResponse(responseCode = "404", description = "Report job not found")
+    })
+    public Mono<ResponseEntity<ReportJobDto>> getReportJob(@Parameter(description = "Job ID") @PathVariable("job-id") String jobId) {
+        log.info("GET /reports/jobs/{} - Fetching report job status", jobId);
+        return Mono.fromCallable(() -> reportJobService.getJob(jobId))
+                .map(ResponseEntity::ok);
+    }
+    
+    // FileSystemResource se envía con transferencia zero-copy (sendfile) cuando el servidor lo soporta
+    @GetMapping("/jobs/{job-id}/download")
+    @Operation(summary = "Download report job result", description = "Downloads the file generated by a completed report job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Report file"),
+            @ApiResponse(responseCode = "404", description = "Report job not found"),
+            @ApiResponse(responseCode = "409", description = "Report job is not completed")
+    })
+    public Mono<ResponseEntity<Resource>> downloadReportJob(@Parameter(description = "Job ID") @PathVariable("job-id") String jobId) {
+        log.info("GET /reports/jobs/{}/download - Downloading report job result", jobId);
+        return Mono.fromCallable(() -> {
+            ReportJobDto job = reportJobService.getJob(jobId);
+            Resource resource = reportJobService.getResult(jobId);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + reportJobService.getFilename(jobId) + "\"")
+                    .contentType(mediaTypeOf(job.getFormat()))
+                    .contentLength(job.getSizeBytes())
+                    .body(resource);
+        });
+    }
+    
+    private MediaType mediaTypeOf(String format) {
+        return switch (format) {
+            case "excel" -> MediaType.parseMediaType(EXCEL_MEDIA_TYPE);
+            case "csv" -> TEXT_CSV;
+            case "ndjson" -> MediaType.APPLICATION_NDJSON;
+            default -> MediaType.APPLICATION_JSON;
+        };
+    }
+    
+    @GetMapping("/{client-id}/summary")
+    @Operation(summary = "Generate account statement summary", 
+               description = "Returns, for each account of the client, the opening balance, total credits, total debits, movement count and closing balance between two dates (inclusive). Built from daily per-account totals.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Summary generated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters"),
+            @ApiResponse(responseCode = "404", description = "Client not found")
+    })
+    public Mono<ResponseEntity<List<AccountSummaryDto>>> generateStatementSummary(
+            @Parameter(description = "Client ID") @PathVariable("client-id") Long clientId,
+            @Parameter(description = "Start date (yyyy-MM-dd)") 
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (yyyy-MM-dd)") 
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        
+        log.info("GET /reports/{}/summary - Generating statement summary from {} to {}", 
+                clientId, startDate, endDate);
+        
+        return reportService.generateStatementSummary(clientId, startDate, endDate)
+                .map(ResponseEntity::ok);
+    }
+    
     @GetMapping("/{client-id}/movements")
     @Operation(summary = "Generate movement report by date and user", 
                description = "Generates a detailed movement report for a client within a date range. Each row includes client name, account info, and movement details.")
@@ -0,0 +1,31 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceDto {
+    
+    @JsonProperty("account_id")
+    private Long accountId;
+    
+    @JsonProperty("as_of")
+    private LocalDateTime asOf;
+    
+    @JsonProperty("balance")
+    private BigDecimal balance;
+    
+    // Último cierre diario usado como punto de partida (null si se calculó desde el saldo inicial)
+    @JsonProperty("checkpoint_date")
+    private LocalDate checkpointDate;
+}
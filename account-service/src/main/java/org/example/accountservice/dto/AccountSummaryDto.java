@@ -0,0 +1,52 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountSummaryDto {
+    
+    @JsonProperty("cliente")
+    private String cliente;
+    
+    @JsonProperty("numero_cuenta")
+    private String numeroCuenta;
+    
+    @JsonProperty("tipo")
+    private String tipo;
+    
+    @JsonProperty("estado")
+    private Boolean estado;
+    
+    @JsonProperty("desde")
+    private LocalDate desde;
+    
+    @JsonProperty("hasta")
+    private LocalDate hasta;
+    
+    // Saldo al inicio del día "desde"
+    @JsonProperty("saldo_inicial")
+    private BigDecimal saldoInicial;
+    
+    @JsonProperty("total_creditos")
+    private BigDecimal totalCreditos;
+    
+    @JsonProperty("total_debitos")
+    private BigDecimal totalDebitos;
+    
+    @JsonProperty("cantidad_movimientos")
+    private Long cantidadMovimientos;
+    
+    // Saldo al cierre del día "hasta"
+    @JsonProperty("saldo_final")
+    private BigDecimal saldoFinal;
+}
@@ -21,6 +21,12 @@ public class CustomerEventDto {
     @JsonProperty("person_id")
     private Long personId;
     
+    @JsonProperty("name")
+    private String name;
+    
+    @JsonProperty("status")
+    private Boolean status;
+    
     @JsonProperty("timestamp")
     private Long timestamp;
 }
@@ -29,5 +29,8 @@ public class CustomerInfoDto {
     
     @JsonProperty("phone")
     private String phone;
+    
+    @JsonProperty("status")
+    private Boolean status;
 }
 
@@ -0,0 +1,26 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementBatchItemResultDto {
+    
+    @JsonProperty("index")
+    private Integer index;
+    
+    @JsonProperty("success")
+    private Boolean success;
+    
+    @JsonProperty("movement")
+    private MovementDto movement;
+    
+    @JsonProperty("error")
+    private String error;
+}
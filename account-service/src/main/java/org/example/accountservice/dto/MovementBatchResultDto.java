@@ -0,0 +1,28 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementBatchResultDto {
+    
+    @JsonProperty("total")
+    private Integer total;
+    
+    @JsonProperty("succeeded")
+    private Integer succeeded;
+    
+    @JsonProperty("failed")
+    private Integer failed;
+    
+    @JsonProperty("results")
+    private List<MovementBatchItemResultDto> results;
+}
@@ -0,0 +1,23 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementPageDto {
+    
+    @JsonProperty("movements")
+    private List<MovementDto> movements;
+    
+    // Cursor opaco para pedir la página siguiente (null si no hay más movimientos)
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -0,0 +1,44 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDto {
+    
+    @JsonProperty("job_id")
+    private String jobId;
+    
+    @JsonProperty("client_id")
+    private Long clientId;
+    
+    @JsonProperty("format")
+    private String format;
+    
+    // PENDING, RUNNING, COMPLETED o FAILED
+    @JsonProperty("status")
+    private String status;
+    
+    @JsonProperty("created_at")
+    private LocalDateTime createdAt;
+    
+    @JsonProperty("completed_at")
+    private LocalDateTime completedAt;
+    
+    @JsonProperty("size_bytes")
+    private Long sizeBytes;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    @JsonProperty("download_url")
+    private String downloadUrl;
+}
@@ -0,0 +1,33 @@
+package org.example.accountservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobRequestDto {
+    
+    @NotNull(message = "Client ID is required")
+    @JsonProperty("client_id")
+    private Long clientId;
+    
+    @NotNull(message = "Start date is required")
+    @JsonProperty("start_date")
+    private LocalDateTime startDate;
+    
+    @NotNull(message = "End date is required")
+    @JsonProperty("end_date")
+    private LocalDateTime endDate;
+    
+    // json, ndjson, csv o excel (por defecto json)
+    @JsonProperty("format")
+    private String format;
+}
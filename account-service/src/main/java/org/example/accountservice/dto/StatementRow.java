@@ -0,0 +1,87 @@
+package org.example.accountservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.accountservice.entity.Account;
+import org.example.accountservice.entity.Movement;
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Fila del estado de cuenta: datos de la cuenta y, si lo hay, de un movimiento del periodo.
+ * Las cuentas sin movimientos llegan con las columnas del movimiento en null.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementRow {
+    
+    @Column("account_id")
+    private Long accountId;
+    
+    @Column("account_number")
+    private String accountNumber;
+    
+    @Column("account_type")
+    private String accountType;
+    
+    @Column("initial_balance")
+    private BigDecimal initialBalance;
+    
+    @Column("current_balance")
+    private BigDecimal currentBalance;
+    
+    @Column("status")
+    private Boolean status;
+    
+    @Column("account_created_at")
+    private LocalDateTime accountCreatedAt;
+    
+    @Column("movement_id")
+    private Long movementId;
+    
+    @Column("movement_date")
+    private LocalDateTime movementDate;
+    
+    @Column("movement_type")
+    private String movementType;
+    
+    @Column("value")
+    private BigDecimal value;
+    
+    @Column("balance")
+    private BigDecimal balance;
+    
+    // Mismo orden que MovementRepository.findStatementRows: fecha descendente (la de creación de la cuenta
+    // si no hay movimiento), luego cuenta y movimiento
+    public static final Comparator<StatementRow> ORDER = Comparator
+            .comparing((StatementRow row) -> row.getMovementDate() != null ? row.getMovementDate() : row.getAccountCreatedAt(),
+                    Comparator.nullsFirst(Comparator.<LocalDateTime>reverseOrder()))
+            .thenComparing(StatementRow::getAccountId)
+            .thenComparing(StatementRow::getMovementId, Comparator.nullsFirst(Comparator.<Long>reverseOrder()));
+    
+    public static StatementRow of(Account account, Movement movement) {
+        StatementRowBuilder row = StatementRow.builder()
+                .accountId(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .accountType(account.getAccountType())
+                .initialBalance(account.getInitialBalance())
+                .currentBalance(account.getCurrentBalance())
+                .status(account.getStatus())
+                .accountCreatedAt(account.getCreatedAt());
+        if (movement != null) {
+            row.movementId(movement.getId())
+                    .movementDate(movement.getMovementDate())
+                    .movementType(movement.getMovementType())
+                    .value(movement.getValue())
+                    .balance(movement.getBalance());
+        }
+        return row.build();
+    }
+}
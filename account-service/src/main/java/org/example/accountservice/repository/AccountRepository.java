@@ -15,5 +15,8 @@ public interface AccountRepository extends ReactiveCrudRepository<Account, Long>
     Flux<Account> findByCustomerId(Long customerId);
     
     Flux<Account> findByCustomerIdAndStatus(Long customerId, Boolean status);
+    
+    @Query("SELECT * FROM accounts WHERE id = :id FOR UPDATE")
+    Mono<Account> findByIdForUpdate(Long id);
 }
 
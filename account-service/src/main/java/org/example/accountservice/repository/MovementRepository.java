@@ -1,11 +1,14 @@
 package org.example.accountservice.repository;
 
+import org.example.accountservice.dto.StatementRow;
 import org.example.accountservice.entity.Movement;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Repository
@@ -13,7 +16,122 @@ public interface MovementRepository extends ReactiveCrudRepository<Movement, Lon
     
     Flux<Movement> findByAccountId(Long accountId);
     
-    @Query("SELECT * FROM movements WHERE account_id = $1 AND movement_date >= $2 AND movement_date <= $3 ORDER BY movement_date DESC")
+    // El rango sobre movement_date (la clave de partición) hace que Postgres solo lea las particiones del periodo;
+    // el orden sale del índice (account_id, movement_date, id) recorrido hacia atrás, sin ordenar
+    @Query("SELECT * FROM movements WHERE account_id = $1 AND movement_date >= $2 AND movement_date <= $3 ORDER BY movement_date DESC, id DESC")
     Flux<Movement> findByAccountIdAndMovementDateBetween(Long accountId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    // Estado de cuenta de un cliente en una sola consulta: todas sus cuentas con los movimientos del periodo,
+    // o una fila con el movimiento en null para las cuentas sin movimientos, ya ordenado por fecha descendente
+    @Query("""
+            SELECT a.id AS account_id, a.account_number, a.account_type, a.initial_balance, a.current_balance,
+                   a.status, a.created_at AS account_created_at,
+                   m.id AS movement_id, m.movement_date, m.movement_type, m.value, m.balance
+            FROM accounts a
+            LEFT JOIN movements m
+                   ON m.account_id = a.id AND m.movement_date >= :startDate AND m.movement_date <= :endDate
+            WHERE a.customer_id = :customerId
+            ORDER BY COALESCE(m.movement_date, a.created_at) DESC, a.id, m.id DESC
+            """)
+    Flux<StatementRow> findStatementRows(Long customerId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    // Movimientos de todas las cuentas de un cliente en un rango (ambos extremos inclusive)
+    @Query("""
+            SELECT m.* FROM movements m
+            JOIN accounts a ON a.id = m.account_id
+            WHERE a.customer_id = :customerId AND m.movement_date >= :startDate AND m.movement_date <= :endDate
+            """)
+    Flux<Movement> findClientMovements(Long customerId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    // Paginación por keyset en orden (movement_date DESC, id DESC). La cota explícita sobre movement_date
+    // permite descartar particiones; la comparación de filas ubica el punto exacto dentro del índice.
+    @Query("SELECT * FROM movements ORDER BY movement_date DESC, id DESC LIMIT :limit")
+    Flux<Movement> findFirstPage(int limit);
+    
+    @Query("""
+            SELECT * FROM movements
+            WHERE movement_date <= :afterDate AND (movement_date, id) < (:afterDate, :afterId)
+            ORDER BY movement_date DESC, id DESC
+            LIMIT :limit
+            """)
+    Flux<Movement> findPageAfter(LocalDateTime afterDate, Long afterId, int limit);
+    
+    @Query("SELECT * FROM movements WHERE account_id = :accountId ORDER BY movement_date DESC, id DESC LIMIT :limit")
+    Flux<Movement> findFirstPageByAccountId(Long accountId, int limit);
+    
+    @Query("""
+            SELECT * FROM movements
+            WHERE account_id = :accountId
+              AND movement_date <= :afterDate AND (movement_date, id) < (:afterDate, :afterId)
+            ORDER BY movement_date DESC, id DESC
+            LIMIT :limit
+            """)
+    Flux<Movement> findPageByAccountIdAfter(Long accountId, LocalDateTime afterDate, Long afterId, int limit);
+    
+    // Aplica el débito/crédito sobre la cuenta, inserta el movimiento y acumula el total diario en una sola sentencia.
+    // Si la cuenta no existe, está inactiva o el saldo resultante sería negativo no se devuelve ninguna fila.
+    @Query("""
+            WITH updated AS (
+                UPDATE accounts
+                SET current_balance = current_balance + :delta, updated_at = :movementDate
+                WHERE id = :accountId AND status = true AND current_balance + :delta >= 0
+                RETURNING id, current_balance
+            ), inserted AS (
+                INSERT INTO movements (account_id, movement_date, movement_type, value, balance, created_at)
+                SELECT id, :movementDate, :movementType, :value, current_balance, :movementDate FROM updated
+                RETURNING *
+            ), rolled AS (
+                INSERT INTO account_daily_rollups (account_id, rollup_date, total_credits, total_debits, movement_count)
+                SELECT account_id, CAST(movement_date AS DATE),
+                       CASE WHEN movement_type = 'CREDIT' THEN value ELSE 0 END,
+                       CASE WHEN movement_type = 'CREDIT' THEN 0 ELSE value END, 1
+                FROM inserted
+                ON CONFLICT (account_id, rollup_date) DO UPDATE SET
+                    total_credits = account_daily_rollups.total_credits + EXCLUDED.total_credits,
+                    total_debits = account_daily_rollups.total_debits + EXCLUDED.total_debits,
+                    movement_count = account_daily_rollups.movement_count + 1
+            )
+            SELECT * FROM inserted
+            """)
+    Mono<Movement> postMovement(Long accountId, String movementType, BigDecimal value, BigDecimal delta, LocalDateTime movementDate);
+    
+    // Igual que postMovement, pero registra además la clave de idempotencia en la misma sentencia.
+    // Una clave repetida viola la clave primaria y la sentencia completa se revierte.
+    @Query("""
+            WITH updated AS (
+                UPDATE accounts
+                SET current_balance = current_balance + :delta, updated_at = :movementDate
+                WHERE id = :accountId AND status = true AND current_balance + :delta >= 0
+                RETURNING id, current_balance
+            ), inserted AS (
+                INSERT INTO movements (account_id, movement_date, movement_type, value, balance, created_at)
+                SELECT id, :movementDate, :movementType, :value, current_balance, :movementDate FROM updated
+                RETURNING *
+            ), keyed AS (
+                INSERT INTO movement_idempotency_keys (idempotency_key, movement_id, movement_date, created_at)
+                SELECT :idempotencyKey, id, movement_date, created_at FROM inserted
+            ), rolled AS (
+                INSERT INTO account_daily_rollups (account_id, rollup_date, total_credits, total_debits, movement_count)
+                SELECT account_id, CAST(movement_date AS DATE),
+                       CASE WHEN movement_type = 'CREDIT' THEN value ELSE 0 END,
+                       CASE WHEN movement_type = 'CREDIT' THEN 0 ELSE value END, 1
+                FROM inserted
+                ON CONFLICT (account_id, rollup_date) DO UPDATE SET
+                    total_credits = account_daily_rollups.total_credits + EXCLUDED.total_credits,
+                    total_debits = account_daily_rollups.total_debits + EXCLUDED.total_debits,
+                    movement_count = account_daily_rollups.movement_count + 1
+            )
+            SELECT * FROM inserted
+            """)
+    Mono<Movement> postMovementWithIdempotencyKey(Long accountId, String movementType, BigDecimal value, BigDecimal delta,
+                                                  LocalDateTime movementDate, String idempotencyKey);
+    
+    // movement_date permite descartar las demás particiones al buscar el movimiento original
+    @Query("""
+            SELECT m.* FROM movement_idempotency_keys k
+            JOIN movements m ON m.id = k.movement_id AND m.movement_date = k.movement_date
+            WHERE k.idempotency_key = :idempotencyKey
+            """)
+    Mono<Movement> findByIdempotencyKey(String idempotencyKey);
 }
 
@@ -0,0 +1,350 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.entity.Account;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Caché de lectura de cuentas indexada por id primitivo. Los datos viven en arreglos paralelos
+ * (long para ids, saldos en centavos y fechas), así que millones de cuentas no generan millones de
+ * objetos Long/BigDecimal. Tiene tamaño máximo con desalojo CLOCK y expiración por TTL.
+ */
+@Slf4j
+@Component
+public class AccountCache {
+    
+    private static final int SCALE = 2;
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+    
+    private final Segment[] segments;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    
+    public AccountCache(MeterRegistry meterRegistry,
+                        @Value("${account.cache.max-size:1000000}") int maxSize,
+                        @Value("${account.cache.ttl:5m}") Duration ttl,
+                        @Value("${account.cache.segments:16}") int segmentCount) {
+        if (maxSize <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("account.cache.max-size and account.cache.segments must be greater than zero");
+        }
+        int segmentCapacity = (maxSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("account.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("account.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("account.cache.evictions").register(meterRegistry);
+        Gauge.builder("account.cache.size", this, AccountCache::size).register(meterRegistry);
+        log.info("Account cache configured with max size {} in {} segments and TTL {}", maxSize, segmentCount, ttl);
+    }
+    
+    public Account get(long id) {
+        Account account = segmentFor(id).get(id, System.nanoTime());
+        if (account != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return account;
+    }
+    
+    public void put(Account account) {
+        if (account == null || account.getId() == null) {
+            return;
+        }
+        segmentFor(account.getId()).put(account, System.nanoTime());
+    }
+    
+    // Aplica un nuevo saldo solo si la cuenta está en caché y el cambio no es más antiguo que lo cacheado
+    public void updateBalance(long id, BigDecimal balance, LocalDateTime updatedAt) {
+        segmentFor(id).updateBalance(id, balance, updatedAt);
+    }
+    
+    public void invalidate(long id) {
+        segmentFor(id).remove(id);
+    }
+    
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+    
+    private Segment segmentFor(long id) {
+        return segments[Math.floorMod((int) (mix(id) >>> 40), segments.length)];
+    }
+    
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+    
+    private static long toCents(BigDecimal value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        long cents = value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        if (cents == NULL_VALUE) {
+            throw new ArithmeticException("Value out of cacheable range");
+        }
+        return cents;
+    }
+    
+    private static BigDecimal fromCents(long cents) {
+        return cents == NULL_VALUE ? null : BigDecimal.valueOf(cents, SCALE);
+    }
+    
+    private static long toMicros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NULL_VALUE;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+    
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+    
+    private final class Segment {
+        
+        private static final int EMPTY = -1;
+        private static final byte OCCUPIED = 1;
+        private static final byte STATUS = 2;
+        private static final byte REFERENCED = 4;
+        
+        private final int capacity;
+        private final int mask;
+        
+        // Índice de direccionamiento abierto (sondeo lineal): id -> posición en los arreglos de datos
+        private final long[] indexKeys;
+        private final int[] indexSlots;
+        
+        // Datos de la cuenta en arreglos paralelos, una posición por cuenta
+        private final long[] ids;
+        private final long[] currentBalances;
+        private final long[] initialBalances;
+        private final long[] customerIds;
+        private final long[] createdAts;
+        private final long[] updatedAts;
+        private final long[] loadedAts;
+        private final byte[] flags;
+        private final String[] accountNumbers;
+        private final String[] accountTypes;
+        
+        private final int[] freeSlots;
+        private int freeCount;
+        private int nextUnused;
+        private int clockHand;
+        private int size;
+        
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            this.mask = tableSize - 1;
+            this.indexKeys = new long[tableSize];
+            this.indexSlots = new int[tableSize];
+            Arrays.fill(indexSlots, EMPTY);
+            this.ids = new long[capacity];
+            this.currentBalances = new long[capacity];
+            this.initialBalances = new long[capacity];
+            this.customerIds = new long[capacity];
+            this.createdAts = new long[capacity];
+            this.updatedAts = new long[capacity];
+            this.loadedAts = new long[capacity];
+            this.flags = new byte[capacity];
+            this.accountNumbers = new String[capacity];
+            this.accountTypes = new String[capacity];
+            this.freeSlots = new int[capacity];
+        }
+        
+        private synchronized Account get(long id, long now) {
+            int position = find(id);
+            if (position == EMPTY) {
+                return null;
+            }
+            int slot = indexSlots[position];
+            if (now - loadedAts[slot] >= ttlNanos) {
+                removeAt(position);
+                return null;
+            }
+            flags[slot] |= REFERENCED;
+            return Account.builder()
+                    .id(ids[slot])
+                    .accountNumber(accountNumbers[slot])
+                    .accountType(accountTypes[slot])
+                    .initialBalance(fromCents(initialBalances[slot]))
+                    .currentBalance(fromCents(currentBalances[slot]))
+                    .status((flags[slot] & STATUS) != 0)
+                    .customerId(customerIds[slot] == NULL_VALUE ? null : customerIds[slot])
+                    .createdAt(fromMicros(createdAts[slot]))
+                    .updatedAt(fromMicros(updatedAts[slot]))
+                    .build();
+        }
+        
+        private synchronized void put(Account account, long now) {
+            long id = account.getId();
+            long currentBalance;
+            long initialBalance;
+            try {
+                currentBalance = toCents(account.getCurrentBalance());
+                initialBalance = toCents(account.getInitialBalance());
+            } catch (ArithmeticException e) {
+                // Montos fuera del rango de long en centavos: no se cachean
+                int position = find(id);
+                if (position != EMPTY) {
+                    removeAt(position);
+                }
+                return;
+            }
+            
+            int position = find(id);
+            int slot;
+            if (position != EMPTY) {
+                slot = indexSlots[position];
+            } else {
+                slot = allocateSlot();
+                insertIndex(id, slot);
+                size++;
+            }
+            ids[slot] = id;
+            currentBalances[slot] = currentBalance;
+            initialBalances[slot] = initialBalance;
+            customerIds[slot] = account.getCustomerId() != null ? account.getCustomerId() : NULL_VALUE;
+            createdAts[slot] = toMicros(account.getCreatedAt());
+            updatedAts[slot] = toMicros(account.getUpdatedAt());
+            loadedAts[slot] = now;
+            accountNumbers[slot] = account.getAccountNumber();
+            accountTypes[slot] = account.getAccountType();
+            flags[slot] = (byte) (OCCUPIED | REFERENCED | (Boolean.TRUE.equals(account.getStatus()) ? STATUS : 0));
+        }
+        
+        private synchronized void updateBalance(long id, BigDecimal balance, LocalDateTime updatedAt) {
+            int position = find(id);
+            if (position == EMPTY) {
+                return;
+            }
+            int slot = indexSlots[position];
+            long updatedAtMicros = toMicros(updatedAt);
+            if (updatedAtMicros != NULL_VALUE && updatedAtMicros < updatedAts[slot]) {
+                return;
+            }
+            try {
+                currentBalances[slot] = toCents(balance);
+                updatedAts[slot] = updatedAtMicros;
+            } catch (ArithmeticException e) {
+                removeAt(position);
+            }
+        }
+        
+        private synchronized void remove(long id) {
+            int position = find(id);
+            if (position != EMPTY) {
+                removeAt(position);
+            }
+        }
+        
+        private synchronized int size() {
+            return size;
+        }
+        
+        private int bucket(long id) {
+            return (int) mix(id) & mask;
+        }
+        
+        private int find(long id) {
+            int position = bucket(id);
+            while (indexSlots[position] != EMPTY) {
+                if (indexKeys[position] == id) {
+                    return position;
+                }
+                position = (position + 1) & mask;
+            }
+            return EMPTY;
+        }
+        
+        private void insertIndex(long id, int slot) {
+            int position = bucket(id);
+            while (indexSlots[position] != EMPTY) {
+                position = (position + 1) & mask;
+            }
+            indexKeys[position] = id;
+            indexSlots[position] = slot;
+        }
+        
+        private int allocateSlot() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (nextUnused < capacity) {
+                return nextUnused++;
+            }
+            // Segmento lleno: desalojo CLOCK, se salta las entradas leídas desde la última vuelta
+            while (true) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) % capacity;
+                if ((flags[slot] & REFERENCED) != 0) {
+                    flags[slot] &= ~REFERENCED;
+                    continue;
+                }
+                deleteIndex(find(ids[slot]));
+                flags[slot] = 0;
+                size--;
+                evictions.increment();
+                return slot;
+            }
+        }
+        
+        private void removeAt(int position) {
+            int slot = indexSlots[position];
+            deleteIndex(position);
+            flags[slot] = 0;
+            accountNumbers[slot] = null;
+            accountTypes[slot] = null;
+            freeSlots[freeCount++] = slot;
+            size--;
+        }
+        
+        // Borrado con desplazamiento hacia atrás, para no dejar huecos que corten las cadenas de sondeo
+        private void deleteIndex(int position) {
+            int hole = position;
+            int probe = position;
+            while (true) {
+                probe = (probe + 1) & mask;
+                if (indexSlots[probe] == EMPTY) {
+                    break;
+                }
+                int home = bucket(indexKeys[probe]);
+                boolean canMove = hole <= probe
+                        ? (home <= hole || home > probe)
+                        : (home <= hole && home > probe);
+                if (canMove) {
+                    indexKeys[hole] = indexKeys[probe];
+                    indexSlots[hole] = indexSlots[probe];
+                    hole = probe;
+                }
+            }
+            indexSlots[hole] = EMPTY;
+        }
+    }
+}
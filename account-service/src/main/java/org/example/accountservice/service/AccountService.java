@@ -21,6 +21,7 @@ public class AccountService {
     
     private final AccountRepository accountRepository;
     private final AccountMapper accountMapper;
+    private final AccountCache accountCache;
     
     @Transactional
     public Mono<AccountDto> createAccount(AccountDto accountDto) {
@@ -41,6 +42,7 @@ public class AccountService {
                             return accountRepository.save(account);
                         })
                 )
+                .doOnNext(accountCache::put)
                 .map(accountMapper::toDto)
                 .doOnSuccess(a -> log.info("Account created successfully with ID: {}", a.getId()))
                 .doOnError(error -> log.error("Error creating account: {}", error.getMessage()));
@@ -48,7 +50,7 @@ public class AccountService {
     
     public Mono<AccountDto> getAccountById(Long id) {
         log.info("Fetching account with ID: {}", id);
-        return accountRepository.findById(id)
+        return findAccount(id)
                 .map(accountMapper::toDto)
                 .switchIfEmpty(Mono.error(new RuntimeException("Account not found with ID: " + id)))
                 .doOnError(error -> log.error("Error fetching account: {}", error.getMessage()));
@@ -86,6 +88,7 @@ public class AccountService {
                     existing.setUpdatedAt(LocalDateTime.now());
                     return accountRepository.save(existing);
                 })
+                .doOnNext(accountCache::put)
                 .map(accountMapper::toDto)
                 .doOnSuccess(a -> log.info("Account updated successfully with ID: {}", a.getId()))
                 .doOnError(error -> log.error("Error updating account: {}", error.getMessage()));
@@ -97,13 +100,27 @@ public class AccountService {
         return accountRepository.findById(id)
                 .switchIfEmpty(Mono.error(new RuntimeException("Account not found with ID: " + id)))
                 .flatMap(accountRepository::delete)
-                .doOnSuccess(v -> log.info("Account deleted successfully with ID: {}", id))
+                .doOnSuccess(v -> {
+                    accountCache.invalidate(id);
+                    log.info("Account deleted successfully with ID: {}", id);
+                })
                 .doOnError(error -> log.error("Error deleting account: {}", error.getMessage()));
     }
     
     public Mono<Account> getAccountEntityById(Long id) {
-        return accountRepository.findById(id)
+        return findAccount(id)
                 .switchIfEmpty(Mono.error(new RuntimeException("Account not found with ID: " + id)));
     }
+    
+    private Mono<Account> findAccount(Long id) {
+        return Mono.defer(() -> {
+            Account cached = accountCache.get(id);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return accountRepository.findById(id)
+                    .doOnNext(accountCache::put);
+        });
+    }
 }
 
@@ -0,0 +1,190 @@
+package org.example.accountservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.AccountBalanceDto;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cierres diarios de saldo por cuenta (account_balance_checkpoints). El saldo a una fecha se obtiene
+ * desde el último cierre anterior más los movimientos posteriores, sin recorrer toda la historia.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceCheckpointService {
+    
+    // Un cierre guarda el saldo al final del día checkpoint_date; solo se crea para cuentas con movimientos ese día
+    private static final String CREATE_CHECKPOINTS_SQL = """
+            INSERT INTO account_balance_checkpoints (account_id, checkpoint_date, balance, created_at)
+            SELECT a.id, :day, COALESCE(prev.balance, a.initial_balance) + delta.amount, CURRENT_TIMESTAMP
+            FROM accounts a
+            LEFT JOIN LATERAL (
+                SELECT c.checkpoint_date, c.balance
+                FROM account_balance_checkpoints c
+                WHERE c.account_id = a.id AND c.checkpoint_date < :day
+                ORDER BY c.checkpoint_date DESC
+                LIMIT 1
+            ) prev ON true
+            JOIN LATERAL (
+                SELECT SUM(CASE WHEN m.movement_type = 'CREDIT' THEN m.value ELSE -m.value END) AS amount,
+                       COUNT(*) FILTER (WHERE m.movement_date >= :day) AS day_movements
+                FROM movements m
+                WHERE m.account_id = a.id
+                  AND m.movement_date >= COALESCE(prev.checkpoint_date + 1, DATE '-infinity')
+                  AND m.movement_date < :nextDay
+            ) delta ON delta.day_movements > 0
+            ON CONFLICT (account_id, checkpoint_date) DO UPDATE SET balance = EXCLUDED.balance, created_at = EXCLUDED.created_at
+            """;
+    
+    // Rehace los cierres de una cuenta desde :fromDay hasta :lastDay en un solo INSERT: parte del cierre anterior
+    // (o del saldo inicial) y acumula los movimientos por día; como el job, solo hay cierre en días con movimientos
+    private static final String REBUILD_ACCOUNT_CHECKPOINTS_SQL = """
+            INSERT INTO account_balance_checkpoints (account_id, checkpoint_date, balance, created_at)
+            SELECT rebuilt.account_id, rebuilt.day, rebuilt.balance, CURRENT_TIMESTAMP
+            FROM (
+                SELECT a.id AS account_id, days.day,
+                       COALESCE(prev.balance, a.initial_balance) + SUM(days.amount) OVER (ORDER BY days.day) AS balance
+                FROM accounts a
+                LEFT JOIN LATERAL (
+                    SELECT c.checkpoint_date, c.balance
+                    FROM account_balance_checkpoints c
+                    WHERE c.account_id = a.id AND c.checkpoint_date < :fromDay
+                    ORDER BY c.checkpoint_date DESC
+                    LIMIT 1
+                ) prev ON true
+                JOIN LATERAL (
+                    SELECT CAST(m.movement_date AS DATE) AS day,
+                           SUM(CASE WHEN m.movement_type = 'CREDIT' THEN m.value ELSE -m.value END) AS amount
+                    FROM movements m
+                    WHERE m.account_id = a.id
+                      AND m.movement_date >= COALESCE(prev.checkpoint_date + 1, DATE '-infinity')
+                      AND m.movement_date < :dayAfterLast
+                    GROUP BY CAST(m.movement_date AS DATE)
+                ) days ON true
+                WHERE a.id = :accountId
+            ) rebuilt
+            WHERE rebuilt.day >= :fromDay
+            ON CONFLICT (account_id, checkpoint_date) DO UPDATE SET balance = EXCLUDED.balance, created_at = EXCLUDED.created_at
+            """;
+    
+    private static final String BALANCE_AS_OF_SQL = """
+            SELECT COALESCE(prev.balance, a.initial_balance) + COALESCE(delta.amount, 0) AS balance,
+                   prev.checkpoint_date
+            FROM accounts a
+            LEFT JOIN LATERAL (
+                SELECT c.checkpoint_date, c.balance
+                FROM account_balance_checkpoints c
+                WHERE c.account_id = a.id AND c.checkpoint_date < CAST(:asOf AS DATE)
+                ORDER BY c.checkpoint_date DESC
+                LIMIT 1
+            ) prev ON true
+            LEFT JOIN LATERAL (
+                SELECT SUM(CASE WHEN m.movement_type = 'CREDIT' THEN m.value ELSE -m.value END) AS amount
+                FROM movements m
+                WHERE m.account_id = a.id
+                  AND m.movement_date >= COALESCE(prev.checkpoint_date + 1, DATE '-infinity')
+                  AND m.movement_date <= :asOf
+            ) delta ON true
+            WHERE a.id = :accountId
+            """;
+    
+    private final DatabaseClient databaseClient;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    public Mono<AccountBalanceDto> getBalanceAsOf(Long accountId, LocalDateTime asOf) {
+        log.info("Fetching balance for account ID: {} as of {}", accountId, asOf);
+        return databaseClient.sql(BALANCE_AS_OF_SQL)
+                .bind("accountId", accountId)
+                .bind("asOf", asOf)
+                .map(row -> AccountBalanceDto.builder()
+                        .accountId(accountId)
+                        .asOf(asOf)
+                        .balance(row.get("balance", BigDecimal.class))
+                        .checkpointDate(row.get("checkpoint_date", LocalDate.class))
+                        .build())
+                .one()
+                .switchIfEmpty(Mono.error(new RuntimeException("Account not found with ID: " + accountId)))
+                .doOnError(error -> log.error("Error fetching balance: {}", error.getMessage()));
+    }
+    
+    public Mono<Long> createCheckpoints(LocalDate day) {
+        return databaseClient.sql(CREATE_CHECKPOINTS_SQL)
+                .bind("day", day)
+                .bind("nextDay", day.plusDays(1))
+                .fetch()
+                .rowsUpdated()
+                .doOnSuccess(rows -> log.info("Created {} balance checkpoints for {}", rows, day));
+    }
+    
+    // Los cierres desde el día del movimiento dejan de ser válidos y se rehacen en el mismo flujo: el job avanza
+    // con un cursor global (último cierre + 1) y nunca volvería a un día que ya dejó atrás. Se rehacen solo hasta
+    // ese cursor, leído antes del DELETE, para no adelantarlo y que el job siga creando los días pendientes
+    public Mono<Void> invalidateFrom(Long accountId, LocalDateTime movementDate) {
+        if (accountId == null || movementDate == null) {
+            return Mono.empty();
+        }
+        LocalDate fromDay = movementDate.toLocalDate();
+        return databaseClient.sql("SELECT MAX(checkpoint_date) AS last_day FROM account_balance_checkpoints")
+                .map(row -> Optional.ofNullable(row.get("last_day", LocalDate.class)))
+                .one()
+                .flatMap(lastDay -> databaseClient.sql("DELETE FROM account_balance_checkpoints WHERE account_id = :accountId AND checkpoint_date >= :day")
+                        .bind("accountId", accountId)
+                        .bind("day", fromDay)
+                        .then()
+                        .then(lastDay.filter(day -> !day.isBefore(fromDay))
+                                .map(day -> rebuildCheckpoints(accountId, fromDay, day))
+                                .orElseGet(Mono::empty)));
+    }
+    
+    private Mono<Void> rebuildCheckpoints(Long accountId, LocalDate fromDay, LocalDate lastDay) {
+        return databaseClient.sql(REBUILD_ACCOUNT_CHECKPOINTS_SQL)
+                .bind("accountId", accountId)
+                .bind("fromDay", fromDay)
+                .bind("dayAfterLast", lastDay.plusDays(1))
+                .fetch()
+                .rowsUpdated()
+                .doOnSuccess(rows -> log.info("Rebuilt {} balance checkpoints for account ID: {} from {} to {}",
+                        rows, accountId, fromDay, lastDay))
+                .then();
+    }
+    
+    @Scheduled(cron = "${account.balance-checkpoint.cron:0 15 0 * * *}")
+    public void checkpointPendingDays() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Balance checkpoint job is still running, skipping this execution");
+            return;
+        }
+        checkpointDaysThrough(LocalDate.now().minusDays(1))
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        rows -> { },
+                        error -> log.error("Error creating balance checkpoints: {}", error.getMessage(), error));
+    }
+    
+    // Crea los cierres pendientes hasta lastDay: desde el día siguiente al último cierre o, si aún no hay
+    // cierres, desde el primer movimiento. Sin cierres ni movimientos no hay nada que crear
+    Flux<Long> checkpointDaysThrough(LocalDate lastDay) {
+        return databaseClient.sql("""
+                        SELECT COALESCE(
+                            (SELECT MAX(checkpoint_date) + 1 FROM account_balance_checkpoints),
+                            (SELECT CAST(MIN(movement_date) AS DATE) FROM movements)) AS first_day
+                        """)
+                .map(row -> Optional.ofNullable(row.get("first_day", LocalDate.class)))
+                .one()
+                .flatMap(Mono::justOrEmpty)
+                .filter(firstDay -> !firstDay.isAfter(lastDay))
+                .flatMapMany(firstDay -> Flux.fromStream(firstDay.datesUntil(lastDay.plusDays(1))))
+                .concatMap(this::createCheckpoints);
+    }
+}
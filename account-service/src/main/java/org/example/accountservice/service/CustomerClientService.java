@@ -1,33 +1,212 @@
 package org.example.accountservice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.example.accountservice.dto.CustomerInfoDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CustomerClientService {
     
+    public static final String UNAVAILABLE_CUSTOMER_NAME = "Cliente no disponible";
+    
     private final WebClient customerServiceWebClient;
+    // Respuestas reales recientes; el nombre por defecto de la degradación nunca se guarda
+    private final Cache<Long, CustomerInfoDto> recentCustomers;
+    // Consultas en curso: las peticiones concurrentes por el mismo cliente comparten una sola llamada HTTP
+    private final Map<Long, Mono<CustomerInfoDto>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter batches;
+    private final CustomerServiceCircuitBreaker circuitBreaker;
+    private final Duration deadline;
+    private final int batchMaxSize;
+    private final long batchWindowNanos;
+    // Consultas que esperan la siguiente llamada en lote; se protegen con batchLock
+    private final Object batchLock = new Object();
+    private Map<Long, Sinks.One<CustomerInfoDto>> pendingBatch = new LinkedHashMap<>();
+    private Disposable scheduledFlush;
+    
+    public CustomerClientService(WebClient customerServiceWebClient,
+                                 MeterRegistry meterRegistry,
+                                 CustomerServiceCircuitBreaker circuitBreaker,
+                                 @Value("${customer.client.deadline:3s}") Duration deadline,
+                                 @Value("${customer.client.cache.max-size:10000}") long cacheMaxSize,
+                                 @Value("${customer.client.cache.ttl:30s}") Duration cacheTtl,
+                                 @Value("${customer.client.batch.max-size:100}") int batchMaxSize,
+                                 @Value("${customer.client.batch.window:5ms}") Duration batchWindow) {
+        this.customerServiceWebClient = customerServiceWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.deadline = deadline;
+        this.batchMaxSize = batchMaxSize;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.recentCustomers = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        this.coalesced = Counter.builder("customer.client.coalesced").register(meterRegistry);
+        this.batches = Counter.builder("customer.client.batches").register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, recentCustomers, "customer.client");
+    }
     
     public Mono<CustomerInfoDto> getCustomerById(Long customerId) {
+        return Mono.defer(() -> {
+                    CustomerInfoDto cached = recentCustomers.getIfPresent(customerId);
+                    if (cached != null) {
+                        log.debug("Customer information for ID {} served from cache", customerId);
+                        return Mono.just(cached);
+                    }
+                    Mono<CustomerInfoDto> pending = inFlight.get(customerId);
+                    if (pending != null) {
+                        coalesced.increment();
+                        return pending;
+                    }
+                    return inFlight.computeIfAbsent(customerId, this::sharedFetch);
+                })
+                .onErrorResume(error -> {
+                    log.error("Could not fetch customer information for ID {}: {}. Returning default.", customerId, error.getMessage(), error);
+                    return Mono.just(CustomerInfoDto.builder()
+                            .id(customerId)
+                            .name(UNAVAILABLE_CUSTOMER_NAME)
+                            .build());
+                });
+    }
+    
+    // La llamada se ejecuta una vez y su resultado (o error) se reparte entre todos los suscriptores;
+    // al terminar se quita de inFlight para que la siguiente consulta use la caché o llame de nuevo
+    private Mono<CustomerInfoDto> sharedFetch(Long customerId) {
+        Mono<CustomerInfoDto> fetch = batchMaxSize > 1 ? Mono.defer(() -> enqueue(customerId)) : fetchCustomer(customerId);
+        return fetch
+                .doOnNext(customer -> {
+                    if (customer.getName() != null && !customer.getName().isEmpty()) {
+                        recentCustomers.put(customerId, customer);
+                    }
+                })
+                .doFinally(signal -> inFlight.remove(customerId))
+                .cache();
+    }
+    
+    // Las consultas de clientes distintos que llegan dentro de la ventana se resuelven con una sola llamada
+    // GET /api/v1/customers?ids=...; el lote sale antes si alcanza batch.max-size
+    private Mono<CustomerInfoDto> enqueue(Long customerId) {
+        Sinks.One<CustomerInfoDto> sink = Sinks.one();
+        Map<Long, Sinks.One<CustomerInfoDto>> ready = null;
+        synchronized (batchLock) {
+            pendingBatch.put(customerId, sink);
+            if (pendingBatch.size() >= batchMaxSize) {
+                ready = takePendingBatch();
+            } else if (pendingBatch.size() == 1) {
+                scheduledFlush = Schedulers.parallel().schedule(this::flush, batchWindowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return sink.asMono();
+    }
+    
+    private void flush() {
+        Map<Long, Sinks.One<CustomerInfoDto>> ready;
+        synchronized (batchLock) {
+            // La tarea programada es la que corre: no hace falta cancelarla
+            scheduledFlush = null;
+            ready = takePendingBatch();
+        }
+        dispatch(ready);
+    }
+    
+    // Debe llamarse con batchLock tomado
+    private Map<Long, Sinks.One<CustomerInfoDto>> takePendingBatch() {
+        Map<Long, Sinks.One<CustomerInfoDto>> ready = pendingBatch;
+        pendingBatch = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.dispose();
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+    
+    private void dispatch(Map<Long, Sinks.One<CustomerInfoDto>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Un lote de un solo cliente usa la consulta individual de siempre
+        if (batch.size() == 1) {
+            Map.Entry<Long, Sinks.One<CustomerInfoDto>> entry = batch.entrySet().iterator().next();
+            fetchCustomer(entry.getKey()).subscribe(
+                    customer -> entry.getValue().tryEmitValue(customer),
+                    error -> entry.getValue().tryEmitError(error),
+                    () -> entry.getValue().tryEmitEmpty());
+            return;
+        }
+        batches.increment();
+        fetchCustomers(batch.keySet()).subscribe(
+                customers -> batch.forEach((customerId, sink) -> {
+                    CustomerInfoDto customer = customers.get(customerId);
+                    if (customer != null) {
+                        sink.tryEmitValue(customer);
+                    } else {
+                        sink.tryEmitError(new CustomerNotFoundException(customerId));
+                    }
+                }),
+                error -> batch.values().forEach(sink -> sink.tryEmitError(error)));
+    }
+    
+    private Mono<Map<Long, CustomerInfoDto>> fetchCustomers(Set<Long> customerIds) {
+        String ids = customerIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        log.info("Fetching customer information for {} IDs in one batch", customerIds.size());
+        return guarded(customerServiceWebClient
+                .get()
+                .uri(uriBuilder -> uriBuilder.path("/api/v1/customers").queryParam("ids", ids).build())
+                .retrieve()
+                .onStatus(status -> status.isError(), response -> {
+                    log.error("Error response from customer service: Status {} for customer IDs {}", response.statusCode(), ids);
+                    return response.bodyToMono(String.class)
+                            .doOnNext(body -> log.error("Error response body: {}", body))
+                            .then(Mono.error(new RuntimeException("Customer service returned error: " + response.statusCode())));
+                })
+                .bodyToFlux(CustomerInfoDto.class)
+                .collectMap(CustomerInfoDto::getId))
+                .doOnError(error -> log.error("Error fetching customer information for IDs {}: {}", ids, error.getMessage(), error));
+    }
+    
+    private Mono<CustomerInfoDto> fetchCustomer(Long customerId) {
         String uri = "/api/v1/customers/" + customerId;
         log.info("Fetching customer information for ID: {} from URI: {}", customerId, uri);
-        return customerServiceWebClient
+        return guarded(customerServiceWebClient
                 .get()
                 .uri("/api/v1/customers/{id}", customerId)
                 .retrieve()
                 .onStatus(status -> status.isError(), response -> {
                     log.error("Error response from customer service: Status {} for customer ID {}", response.statusCode(), customerId);
+                    if (response.statusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                        return Mono.error(new CustomerNotFoundException(customerId));
+                    }
                     return response.bodyToMono(String.class)
                             .doOnNext(body -> log.error("Error response body: {}", body))
                             .then(Mono.error(new RuntimeException("Customer service returned error: " + response.statusCode())));
                 })
-                .bodyToMono(CustomerInfoDto.class)
+                .bodyToMono(CustomerInfoDto.class))
                 .doOnSuccess(c -> {
                     if (c != null && c.getName() != null && !c.getName().isEmpty()) {
                         log.info("Customer information retrieved successfully for ID {}: {}", customerId, c.getName());
@@ -35,14 +214,35 @@ public class CustomerClientService {
                         log.warn("Customer information retrieved but name is null or empty for ID: {}. Customer object: {}", customerId, c);
                     }
                 })
-                .doOnError(error -> log.error("Error fetching customer information for ID {}: {}", customerId, error.getMessage(), error))
-                .onErrorResume(error -> {
-                    log.error("Could not fetch customer information for ID {}: {}. Returning default.", customerId, error.getMessage(), error);
-                    return Mono.just(CustomerInfoDto.builder()
-                            .id(customerId)
-                            .name("Cliente no disponible")
-                            .build());
-                });
+                .doOnError(error -> log.error("Error fetching customer information for ID {}: {}", customerId, error.getMessage(), error));
+    }
+    
+    // Cada llamada HTTP tiene un plazo total (incluida la espera por una conexión del pool) y pasa por el
+    // circuit breaker; un cliente inexistente (404) es una respuesta válida y no cuenta como fallo
+    private <T> Mono<T> guarded(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new RuntimeException("Customer service circuit breaker is open"));
+            }
+            return call.timeout(deadline)
+                    .doOnSuccess(result -> circuitBreaker.onSuccess())
+                    .doOnError(error -> {
+                        if (error instanceof CustomerNotFoundException) {
+                            circuitBreaker.onSuccess();
+                        } else {
+                            circuitBreaker.onFailure();
+                        }
+                    });
+        });
+    }
+    
+    // Respuesta 404 (o id ausente en un lote): customer-service respondió bien, el cliente no existe
+    private static final class CustomerNotFoundException extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private CustomerNotFoundException(Long customerId) {
+            super("Customer not found with ID: " + customerId);
+        }
     }
 }
-
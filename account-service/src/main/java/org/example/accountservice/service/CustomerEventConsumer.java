@@ -1,47 +1,167 @@
 package org.example.accountservice.service;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.example.accountservice.dto.CustomerEventDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.KafkaReceiver;
 import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
 
-import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 
+/**
+ * Consume customer-events. Cada partición se procesa en orden (los eventos con la misma clave caen en la
+ * misma partición), pero las particiones avanzan en paralelo sobre un scheduler acotado. Aplicar un evento
+ * se reintenta con backoff; si sigue fallando se guarda en customer_event_dead_letters y se confirma, así un
+ * evento no detiene su partición ni las demás. Solo un error del receptor vuelve a suscribir el consumidor
+ * desde el último offset confirmado. Los registros ilegibles se descartan.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CustomerEventConsumer {
     
+    // La clave es la posición del registro: si se vuelve a entregar tras un rebalanceo no se duplica
+    private static final String INSERT_DEAD_LETTER_SQL = """
+            INSERT INTO customer_event_dead_letters (topic, partition_number, record_offset, customer_id, event_type,
+                                                     name, status, event_timestamp, error, created_at)
+            VALUES (:topic, :partition, :offset, :customerId, :eventType, :name, :status, :eventTimestamp, :error, CURRENT_TIMESTAMP)
+            ON CONFLICT (topic, partition_number, record_offset) DO NOTHING
+            """;
+    
     private final ReceiverOptions<String, CustomerEventDto> kafkaReceiverOptions;
+    private final DatabaseClient databaseClient;
+    private final StatementCache statementCache;
+    private final CustomerProjectionService customerProjectionService;
+    private final Scheduler scheduler;
+    private final int applyRetries;
+    private final Duration applyBackoff;
+    private Disposable subscription;
+    
+    public CustomerEventConsumer(ReceiverOptions<String, CustomerEventDto> kafkaReceiverOptions,
+                                 DatabaseClient databaseClient,
+                                 StatementCache statementCache,
+                                 CustomerProjectionService customerProjectionService,
+                                 @Value("${customer.events.consumer.threads:0}") int threads,
+                                 @Value("${customer.events.consumer.apply-retries:5}") int applyRetries,
+                                 @Value("${customer.events.consumer.apply-backoff:200ms}") Duration applyBackoff) {
+        this.kafkaReceiverOptions = kafkaReceiverOptions;
+        this.databaseClient = databaseClient;
+        this.statementCache = statementCache;
+        this.customerProjectionService = customerProjectionService;
+        this.applyRetries = applyRetries;
+        this.applyBackoff = applyBackoff;
+        this.scheduler = Schedulers.newParallel("customer-events",
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
     
     @PostConstruct
     public void consumeCustomerEvents() {
-        KafkaReceiver.create(kafkaReceiverOptions)
+        subscription = KafkaReceiver.create(kafkaReceiverOptions)
                 .receive()
-                .subscribe(record -> {
-                    CustomerEventDto event = record.value();
-                    log.info("Received customer event: {} for customer ID: {}", 
-                            event.getEventType(), event.getCustomerId());
-                    
-                    switch (event.getEventType()) {
-                        case "CREATED":
-                            log.info("Customer created: {}", event.getCustomerId());
-                            break;
-                        case "UPDATED":
-                            log.info("Customer updated: {}", event.getCustomerId());
-                            break;
-                        case "DELETED":
-                            log.info("Customer deleted: {}", event.getCustomerId());
-                            break;
-                        default:
-                            log.warn("Unknown event type: {}", event.getEventType());
-                    }
-                    
-                    record.receiverOffset().acknowledge();
-                });
+                // Un grupo por partición asignada; flatMap sin límite práctico para no dejar grupos sin consumir.
+                // handle no propaga errores de un evento, así que lo que llega a retryWhen viene del receptor
+                .groupBy(record -> record.receiverOffset().topicPartition())
+                .flatMap(partition -> partition
+                        .publishOn(scheduler)
+                        .concatMap(this::handle), Integer.MAX_VALUE)
+                .doOnError(error -> log.error("Customer event consumer failed: {}", error.getMessage(), error))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Restarting customer event consumer (attempt {})", signal.totalRetries() + 1)))
+                .subscribe();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        scheduler.dispose();
+    }
+    
+    // El offset se confirma después de actualizar la proyección local del cliente o, agotados los reintentos,
+    // de guardar el evento en customer_event_dead_letters; los commits se agrupan según commit-batch-size /
+    // commit-interval
+    Mono<Void> handle(ReceiverRecord<String, CustomerEventDto> record) {
+        CustomerEventDto event = record.value();
+        if (event == null) {
+            log.error("Skipping unreadable customer event at {} offset {}", record.receiverOffset().topicPartition(), record.offset());
+            return Mono.fromRunnable(() -> record.receiverOffset().acknowledge());
+        }
+        log.info("Received customer event: {} for customer ID: {}", 
+                event.getEventType(), event.getCustomerId());
+        
+        // Un error de base de datos suele ser transitorio (pool agotado, failover): confirmar el offset sin
+        // aplicar ni guardar el evento dejaría la proyección desactualizada para siempre
+        return customerProjectionService.apply(event)
+                .retryWhen(Retry.backoff(applyRetries, applyBackoff)
+                        .doBeforeRetry(signal -> log.warn("Retrying customer event for customer ID {} (attempt {}): {}",
+                                event.getCustomerId(), signal.totalRetries() + 1, signal.failure().getMessage())))
+                .doOnSuccess(v -> onEventApplied(event))
+                .onErrorResume(error -> {
+                    Throwable cause = Exceptions.isRetryExhausted(error) ? error.getCause() : error;
+                    log.error("Error applying customer event for customer ID {}, moving it to dead letters: {}",
+                            event.getCustomerId(), cause.getMessage());
+                    return deadLetter(record, cause);
+                })
+                .then(Mono.fromRunnable(() -> record.receiverOffset().acknowledge()));
+    }
+    
+    // Sin guardar el evento no se puede confirmar su offset: se reintenta sin límite y solo espera esta partición
+    private Mono<Void> deadLetter(ReceiverRecord<String, CustomerEventDto> record, Throwable error) {
+        CustomerEventDto event = record.value();
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT_DEAD_LETTER_SQL)
+                .bind("topic", record.topic())
+                .bind("partition", record.partition())
+                .bind("offset", record.offset());
+        spec = bindNullable(spec, "customerId", event.getCustomerId(), Long.class);
+        spec = bindNullable(spec, "eventType", event.getEventType(), String.class);
+        spec = bindNullable(spec, "name", event.getName(), String.class);
+        spec = bindNullable(spec, "status", event.getStatus(), Boolean.class);
+        spec = bindNullable(spec, "eventTimestamp", event.getTimestamp(), Long.class);
+        spec = bindNullable(spec, "error", error.getMessage(), String.class);
+        return spec.then()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, applyBackoff)
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Retrying dead letter for customer event at {}-{} offset {} (attempt {}): {}",
+                                record.topic(), record.partition(), record.offset(), signal.totalRetries() + 1,
+                                signal.failure().getMessage())));
+    }
+    
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                                      T value, Class<T> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+    
+    private void onEventApplied(CustomerEventDto event) {
+        if (event.getEventType() == null) {
+            log.warn("Customer event without type for customer ID: {}", event.getCustomerId());
+            return;
+        }
+        switch (event.getEventType()) {
+            case "CREATED":
+                log.info("Customer created: {}", event.getCustomerId());
+                break;
+            case "UPDATED":
+                log.info("Customer updated: {}", event.getCustomerId());
+                statementCache.invalidateClient(event.getCustomerId());
+                break;
+            case "DELETED":
+                log.info("Customer deleted: {}", event.getCustomerId());
+                statementCache.invalidateClient(event.getCustomerId());
+                break;
+            default:
+                log.warn("Unknown event type: {}", event.getEventType());
+        }
     }
 }
-
@@ -0,0 +1,155 @@
+package org.example.accountservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.CustomerEventDto;
+import org.example.accountservice.dto.CustomerInfoDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Proyección local de clientes (customer_projections): id, nombre y estado, mantenida con los eventos
+ * de customer-events. Los reportes leen el nombre de aquí y solo llaman a customer-service si el
+ * cliente todavía no está en la proyección. Mientras la carga inicial desde GET /api/v1/customers no
+ * quede registrada como terminada en customer_projection_state, se intenta en cada arranque.
+ */
+@Slf4j
+@Service
+public class CustomerProjectionService {
+    
+    // Un evento solo se aplica si no es más antiguo que el último aplicado al cliente
+    private static final String APPLY_EVENT_SQL = """
+            INSERT INTO customer_projections (customer_id, name, status, deleted, event_timestamp, updated_at)
+            VALUES (:customerId, :name, :status, :deleted, :eventTimestamp, CURRENT_TIMESTAMP)
+            ON CONFLICT (customer_id) DO UPDATE SET
+                name = COALESCE(EXCLUDED.name, customer_projections.name),
+                status = COALESCE(EXCLUDED.status, customer_projections.status),
+                deleted = EXCLUDED.deleted,
+                event_timestamp = EXCLUDED.event_timestamp,
+                updated_at = EXCLUDED.updated_at
+            WHERE customer_projections.event_timestamp <= EXCLUDED.event_timestamp
+            """;
+    
+    // Carga desde customer-service (bootstrap o consulta puntual): no pisa lo que ya trajo un evento, salvo el
+    // nombre que falta en filas creadas por eventos antiguos sin nombre (de clientes que siguen activos)
+    private static final String INSERT_SNAPSHOT_SQL = """
+            INSERT INTO customer_projections (customer_id, name, status, deleted, event_timestamp, updated_at)
+            VALUES (:customerId, :name, :status, false, 0, CURRENT_TIMESTAMP)
+            ON CONFLICT (customer_id) DO UPDATE SET
+                name = EXCLUDED.name,
+                status = COALESCE(customer_projections.status, EXCLUDED.status),
+                updated_at = EXCLUDED.updated_at
+            WHERE customer_projections.name IS NULL AND NOT customer_projections.deleted
+            """;
+    
+    private final DatabaseClient databaseClient;
+    private final CustomerClientService customerClientService;
+    private final WebClient customerServiceWebClient;
+    private final boolean bootstrapEnabled;
+    private final int bootstrapRetries;
+    
+    public CustomerProjectionService(DatabaseClient databaseClient,
+                                     CustomerClientService customerClientService,
+                                     WebClient customerServiceWebClient,
+                                     @Value("${customer.projection.bootstrap:true}") boolean bootstrapEnabled,
+                                     @Value("${customer.projection.bootstrap-retries:5}") int bootstrapRetries) {
+        this.databaseClient = databaseClient;
+        this.customerClientService = customerClientService;
+        this.customerServiceWebClient = customerServiceWebClient;
+        this.bootstrapEnabled = bootstrapEnabled;
+        this.bootstrapRetries = bootstrapRetries;
+    }
+    
+    public Mono<CustomerInfoDto> getCustomer(Long customerId) {
+        return databaseClient.sql("SELECT name FROM customer_projections WHERE customer_id = :customerId AND NOT deleted AND name IS NOT NULL")
+                .bind("customerId", customerId)
+                .map(row -> CustomerInfoDto.builder()
+                        .id(customerId)
+                        .name(row.get("name", String.class))
+                        .build())
+                .one()
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.debug("Customer ID: {} not in projection, fetching from customer service", customerId);
+                    return customerClientService.getCustomerById(customerId)
+                            .flatMap(customer -> CustomerClientService.UNAVAILABLE_CUSTOMER_NAME.equals(customer.getName())
+                                    ? Mono.just(customer)
+                                    : insertSnapshot(customer).thenReturn(customer));
+                }));
+    }
+    
+    public Mono<Void> apply(CustomerEventDto event) {
+        if (event.getCustomerId() == null) {
+            return Mono.empty();
+        }
+        boolean deleted = "DELETED".equals(event.getEventType());
+        return bindNullable(databaseClient.sql(APPLY_EVENT_SQL)
+                        .bind("customerId", event.getCustomerId())
+                        .bind("deleted", deleted)
+                        .bind("eventTimestamp", event.getTimestamp() != null ? event.getTimestamp() : System.currentTimeMillis()),
+                event.getName(), event.getStatus())
+                .then();
+    }
+    
+    // El consumidor de eventos puede haber escrito en la tabla antes de este punto: lo que decide si falta la
+    // carga es la marca de finalización, no que la tabla esté vacía
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!bootstrapEnabled) {
+            return;
+        }
+        bootstrapIfPending()
+                .subscribe(
+                        count -> log.info("Customer projection bootstrapped with {} customers", count),
+                        error -> log.error("Error bootstrapping customer projection: {}", error.getMessage(), error));
+    }
+    
+    public Mono<Long> bootstrapIfPending() {
+        return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM customer_projection_state WHERE name = 'bootstrap') AS completed")
+                .map(row -> row.get("completed", Boolean.class))
+                .one()
+                .filter(completed -> !completed)
+                // Las filas con nombre no se pisan (solo se completa un nombre NULL), así que reintentar desde el principio es seguro
+                .flatMap(pending -> bootstrap()
+                        .retryWhen(Retry.backoff(bootstrapRetries, Duration.ofSeconds(2))
+                                .doBeforeRetry(signal -> log.warn("Retrying customer projection bootstrap (attempt {}): {}",
+                                        signal.totalRetries() + 1, signal.failure().getMessage())))
+                        .flatMap(count -> databaseClient.sql("""
+                                        INSERT INTO customer_projection_state (name, completed_at) VALUES ('bootstrap', CURRENT_TIMESTAMP)
+                                        ON CONFLICT (name) DO NOTHING
+                                        """)
+                                .then()
+                                .thenReturn(count)));
+    }
+    
+    // Lee el listado en NDJSON para no cargar todos los clientes en memoria
+    public Mono<Long> bootstrap() {
+        log.info("Bootstrapping customer projection from customer service");
+        return customerServiceWebClient.get()
+                .uri("/api/v1/customers")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(CustomerInfoDto.class)
+                .concatMap(this::insertSnapshot)
+                .count();
+    }
+    
+    private Mono<Long> insertSnapshot(CustomerInfoDto customer) {
+        return bindNullable(databaseClient.sql(INSERT_SNAPSHOT_SQL).bind("customerId", customer.getId()),
+                customer.getName(), customer.getStatus())
+                .fetch()
+                .rowsUpdated();
+    }
+    
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, Boolean status) {
+        spec = name != null ? spec.bind("name", name) : spec.bindNull("name", String.class);
+        return status != null ? spec.bind("status", status) : spec.bindNull("status", Boolean.class);
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker de las llamadas a customer-service. Cuenta el resultado de las últimas sliding-window
+ * llamadas; si el porcentaje de fallos llega a failure-rate-threshold se abre y durante open-duration las
+ * consultas van directo a la degradación sin llamar por HTTP. Después deja pasar half-open-calls llamadas
+ * de prueba: si todas responden se cierra, si una falla vuelve a abrirse.
+ */
+@Slf4j
+@Component
+public class CustomerServiceCircuitBreaker {
+    
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Counter rejected;
+    // Resultados de las últimas llamadas en un buffer circular (true = fallo); se protege con synchronized
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    
+    public CustomerServiceCircuitBreaker(MeterRegistry meterRegistry,
+                                         @Value("${customer.client.circuit-breaker.sliding-window:20}") int slidingWindow,
+                                         @Value("${customer.client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                         @Value("${customer.client.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                         @Value("${customer.client.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                         @Value("${customer.client.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        this.window = new boolean[slidingWindow];
+        this.minimumCalls = Math.min(minimumCalls, slidingWindow);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.rejected = Counter.builder("customer.client.circuit.rejected").register(meterRegistry);
+        Gauge.builder("customer.client.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+    
+    // Indica si la llamada puede hacerse; cada llamada permitida debe informar onSuccess u onFailure
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            log.info("Customer service circuit breaker half-open, allowing {} trial calls", halfOpenCalls);
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+    
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                log.info("Customer service circuit breaker closed");
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        record(false);
+    }
+    
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minimumCalls
+                && windowFailures * 100 >= failureRateThreshold * windowCount) {
+            open();
+        }
+    }
+    
+    synchronized State getState() {
+        return state;
+    }
+    
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+    
+    private void open() {
+        log.warn("Customer service circuit breaker open for {} ms", openDurationNanos / 1_000_000);
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        resetWindow();
+    }
+    
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.accountservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.AccountSummaryDto;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales diarios por cuenta (account_daily_rollups). Los movimientos individuales los acumula
+ * MovementRepository.postMovement en la misma sentencia; aquí se aplican los lotes, se recalcula un día
+ * cuando se edita o elimina un movimiento y se arma el resumen de estado de cuenta leyendo un registro
+ * por cuenta y día en lugar de recorrer todos los movimientos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+    
+    // El saldo inicial parte del último cierre diario anterior al rango y suma los totales diarios hasta el día previo
+    private static final String SUMMARY_SQL = """
+            SELECT a.account_number, a.account_type, a.status,
+                   COALESCE(prev.balance, a.initial_balance) + COALESCE(before.amount, 0) AS opening_balance,
+                   COALESCE(period.credits, 0) AS total_credits,
+                   COALESCE(period.debits, 0) AS total_debits,
+                   COALESCE(period.movements, 0) AS movement_count
+            FROM accounts a
+            LEFT JOIN LATERAL (
+                SELECT c.checkpoint_date, c.balance
+                FROM account_balance_checkpoints c
+                WHERE c.account_id = a.id AND c.checkpoint_date < :startDate
+                ORDER BY c.checkpoint_date DESC
+                LIMIT 1
+            ) prev ON true
+            LEFT JOIN LATERAL (
+                SELECT SUM(r.total_credits - r.total_debits) AS amount
+                FROM account_daily_rollups r
+                WHERE r.account_id = a.id
+                  AND r.rollup_date > COALESCE(prev.checkpoint_date, DATE '-infinity')
+                  AND r.rollup_date < :startDate
+            ) before ON true
+            LEFT JOIN LATERAL (
+                SELECT SUM(r.total_credits) AS credits, SUM(r.total_debits) AS debits, SUM(r.movement_count) AS movements
+                FROM account_daily_rollups r
+                WHERE r.account_id = a.id AND r.rollup_date BETWEEN :startDate AND :endDate
+            ) period ON true
+            WHERE a.customer_id = :customerId
+            ORDER BY a.id
+            """;
+    
+    private static final String ADD_SQL = """
+            INSERT INTO account_daily_rollups (account_id, rollup_date, total_credits, total_debits, movement_count)
+            VALUES (:accountId, :day, :credits, :debits, :movements)
+            ON CONFLICT (account_id, rollup_date) DO UPDATE SET
+                total_credits = account_daily_rollups.total_credits + EXCLUDED.total_credits,
+                total_debits = account_daily_rollups.total_debits + EXCLUDED.total_debits,
+                movement_count = account_daily_rollups.movement_count + EXCLUDED.movement_count
+            """;
+    
+    private static final String REBUILD_SQL = """
+            INSERT INTO account_daily_rollups (account_id, rollup_date, total_credits, total_debits, movement_count)
+            SELECT :accountId, :day,
+                   COALESCE(SUM(value) FILTER (WHERE movement_type = 'CREDIT'), 0),
+                   COALESCE(SUM(value) FILTER (WHERE movement_type <> 'CREDIT'), 0),
+                   COUNT(*)
+            FROM movements
+            WHERE account_id = :accountId AND movement_date >= :day AND movement_date < :nextDay
+            HAVING COUNT(*) > 0
+            """;
+    
+    private final DatabaseClient databaseClient;
+    
+    public Flux<AccountSummaryDto> getSummary(Long customerId, LocalDate startDate, LocalDate endDate) {
+        return databaseClient.sql(SUMMARY_SQL)
+                .bind("customerId", customerId)
+                .bind("startDate", startDate)
+                .bind("endDate", endDate)
+                .map(row -> {
+                    BigDecimal opening = row.get("opening_balance", BigDecimal.class);
+                    BigDecimal credits = row.get("total_credits", BigDecimal.class);
+                    BigDecimal debits = row.get("total_debits", BigDecimal.class);
+                    return AccountSummaryDto.builder()
+                            .numeroCuenta(row.get("account_number", String.class))
+                            .tipo(row.get("account_type", String.class))
+                            .estado(row.get("status", Boolean.class))
+                            .desde(startDate)
+                            .hasta(endDate)
+                            .saldoInicial(opening)
+                            .totalCreditos(credits)
+                            .totalDebitos(debits)
+                            .cantidadMovimientos(row.get("movement_count", Long.class))
+                            .saldoFinal(opening.add(credits).subtract(debits))
+                            .build();
+                })
+                .all();
+    }
+    
+    // Acumula un grupo de movimientos del mismo día; debe ejecutarse en la transacción que los inserta
+    public Mono<Void> add(Long accountId, LocalDate day, BigDecimal credits, BigDecimal debits, int movements) {
+        return databaseClient.sql(ADD_SQL)
+                .bind("accountId", accountId)
+                .bind("day", day)
+                .bind("credits", credits)
+                .bind("debits", debits)
+                .bind("movements", movements)
+                .then();
+    }
+    
+    // Recalcula el día desde los movimientos; se usa al editar o eliminar, donde no hay un delta simple
+    public Mono<Void> rebuildDay(Long accountId, LocalDate day) {
+        if (accountId == null || day == null) {
+            return Mono.empty();
+        }
+        return databaseClient.sql("DELETE FROM account_daily_rollups WHERE account_id = :accountId AND rollup_date = :day")
+                .bind("accountId", accountId)
+                .bind("day", day)
+                .then()
+                .then(databaseClient.sql(REBUILD_SQL)
+                        .bind("accountId", accountId)
+                        .bind("day", day)
+                        .bind("nextDay", day.plusDays(1))
+                        .then());
+    }
+}
@@ -0,0 +1,290 @@
+package org.example.accountservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.MovementBatchItemResultDto;
+import org.example.accountservice.dto.MovementBatchResultDto;
+import org.example.accountservice.dto.MovementDto;
+import org.example.accountservice.entity.Account;
+import org.example.accountservice.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class MovementBatchService {
+    
+    private static final String DEBIT = "DEBIT";
+    private static final String CREDIT = "CREDIT";
+    
+    private final AccountRepository accountRepository;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final MovementSequencer movementSequencer;
+    private final AccountCache accountCache;
+    private final StatementCache statementCache;
+    private final DailyRollupService dailyRollupService;
+    private final int maxBatchSize;
+    private final int insertChunkSize;
+    private final int accountConcurrency;
+    
+    public MovementBatchService(AccountRepository accountRepository,
+                                DatabaseClient databaseClient,
+                                TransactionalOperator transactionalOperator,
+                                MovementSequencer movementSequencer,
+                                AccountCache accountCache,
+                                StatementCache statementCache,
+                                DailyRollupService dailyRollupService,
+                                @Value("${movement.batch.max-size:10000}") int maxBatchSize,
+                                @Value("${movement.batch.insert-chunk-size:1000}") int insertChunkSize,
+                                @Value("${movement.batch.account-concurrency:8}") int accountConcurrency) {
+        this.accountRepository = accountRepository;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.movementSequencer = movementSequencer;
+        this.accountCache = accountCache;
+        this.statementCache = statementCache;
+        this.dailyRollupService = dailyRollupService;
+        this.maxBatchSize = maxBatchSize;
+        this.insertChunkSize = insertChunkSize;
+        this.accountConcurrency = accountConcurrency;
+    }
+    
+    public Mono<MovementBatchResultDto> createMovements(List<MovementDto> movements) {
+        log.info("Creating batch of {} movements", movements.size());
+        
+        if (movements.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Movement batch must not be empty"));
+        }
+        if (movements.size() > maxBatchSize) {
+            return Mono.error(new IllegalArgumentException("Movement batch exceeds the maximum size of " + maxBatchSize));
+        }
+        
+        List<MovementBatchItemResultDto> rejected = new ArrayList<>();
+        Map<Long, List<BatchItem>> byAccount = new LinkedHashMap<>();
+        for (int index = 0; index < movements.size(); index++) {
+            MovementDto movementDto = movements.get(index);
+            String error = validate(movementDto);
+            if (error != null) {
+                rejected.add(failure(index, error));
+            } else {
+                byAccount.computeIfAbsent(movementDto.getAccountId(), id -> new ArrayList<>())
+                        .add(new BatchItem(index, movementDto));
+            }
+        }
+        
+        return Flux.fromIterable(byAccount.entrySet())
+                .flatMap(entry -> movementSequencer.submit(entry.getKey(),
+                                () -> transactionalOperator.transactional(applyAccountGroup(entry.getKey(), entry.getValue()))
+                                        .doOnNext(results -> refreshCachedBalance(entry.getKey(), results)))
+                        // Un error de base de datos revierte solo el grupo de esa cuenta; los demás grupos ya
+                        // confirmados se siguen informando en la respuesta
+                        .onErrorResume(error -> {
+                            log.error("Error posting movement batch for account {}: {}", entry.getKey(), error.getMessage());
+                            return Mono.just(rejectAll(entry.getValue(), error.getMessage()));
+                        }),
+                        accountConcurrency)
+                .flatMapIterable(results -> results)
+                .concatWith(Flux.fromIterable(rejected))
+                .collectSortedList(Comparator.comparing(MovementBatchItemResultDto::getIndex))
+                .map(results -> {
+                    int succeeded = (int) results.stream().filter(MovementBatchItemResultDto::getSuccess).count();
+                    return MovementBatchResultDto.builder()
+                            .total(results.size())
+                            .succeeded(succeeded)
+                            .failed(results.size() - succeeded)
+                            .results(results)
+                            .build();
+                })
+                .doOnSuccess(r -> log.info("Movement batch processed: {} succeeded, {} failed", r.getSucceeded(), r.getFailed()))
+                .doOnError(error -> log.error("Error processing movement batch: {}", error.getMessage()));
+    }
+    
+    private Mono<List<MovementBatchItemResultDto>> applyAccountGroup(Long accountId, List<BatchItem> items) {
+        return accountRepository.findByIdForUpdate(accountId)
+                .flatMap(account -> {
+                    if (!account.getStatus()) {
+                        return Mono.just(rejectAll(items, "Account is inactive"));
+                    }
+                    return postGroup(account, items);
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> rejectAll(items, "Account not found with ID: " + accountId)));
+    }
+    
+    private Mono<List<MovementBatchItemResultDto>> postGroup(Account account, List<BatchItem> items) {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal balance = account.getCurrentBalance();
+        BigDecimal credits = BigDecimal.ZERO;
+        BigDecimal debits = BigDecimal.ZERO;
+        List<MovementBatchItemResultDto> results = new ArrayList<>(items.size());
+        List<MovementDto> accepted = new ArrayList<>(items.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(items.size());
+        
+        // Los movimientos de la cuenta se aplican en el orden en que llegaron en el lote
+        for (BatchItem item : items) {
+            MovementDto movementDto = item.movement();
+            boolean debit = DEBIT.equalsIgnoreCase(movementDto.getMovementType());
+            BigDecimal newBalance = debit
+                    ? balance.subtract(movementDto.getValue())
+                    : balance.add(movementDto.getValue());
+            if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
+                results.add(failure(item.index(), "Saldo no disponible"));
+                continue;
+            }
+            balance = newBalance;
+            if (debit) {
+                debits = debits.add(movementDto.getValue());
+            } else {
+                credits = credits.add(movementDto.getValue());
+            }
+            accepted.add(MovementDto.builder()
+                    .accountId(account.getId())
+                    .movementDate(now)
+                    .movementType(debit ? DEBIT : CREDIT)
+                    .value(movementDto.getValue())
+                    .balance(newBalance)
+                    .createdAt(now)
+                    .build());
+            acceptedIndexes.add(item.index());
+        }
+        
+        if (accepted.isEmpty()) {
+            return Mono.just(results);
+        }
+        
+        BigDecimal finalBalance = balance;
+        BigDecimal totalCredits = credits;
+        BigDecimal totalDebits = debits;
+        return insertMovements(accepted)
+                .then(updateBalance(account.getId(), finalBalance, now))
+                .then(dailyRollupService.add(account.getId(), now.toLocalDate(), totalCredits, totalDebits, accepted.size()))
+                .then(Mono.fromSupplier(() -> {
+                    for (int i = 0; i < accepted.size(); i++) {
+                        results.add(MovementBatchItemResultDto.builder()
+                                .index(acceptedIndexes.get(i))
+                                .success(true)
+                                .movement(accepted.get(i))
+                                .build());
+                    }
+                    log.info("Posted {} movements for account {} with final balance {}", accepted.size(), account.getId(), finalBalance);
+                    return results;
+                }));
+    }
+    
+    // Se ejecuta después del commit del grupo: el último movimiento aceptado trae el saldo final de la cuenta
+    // y todos los movimientos del grupo comparten la misma fecha
+    private void refreshCachedBalance(Long accountId, List<MovementBatchItemResultDto> results) {
+        results.stream()
+                .filter(MovementBatchItemResultDto::getSuccess)
+                .reduce((first, second) -> second)
+                .ifPresent(last -> {
+                    accountCache.updateBalance(accountId, last.getMovement().getBalance(), last.getMovement().getMovementDate());
+                    statementCache.invalidateMovement(accountId, last.getMovement().getMovementDate());
+                });
+    }
+    
+    // Asigna a cada movimiento el id con el que se insertó
+    private Mono<Void> insertMovements(List<MovementDto> movements) {
+        List<List<MovementDto>> chunks = new ArrayList<>();
+        for (int from = 0; from < movements.size(); from += insertChunkSize) {
+            chunks.add(movements.subList(from, Math.min(from + insertChunkSize, movements.size())));
+        }
+        return Flux.fromIterable(chunks).concatMap(this::insertChunk).then();
+    }
+    
+    // Postgres no garantiza que RETURNING devuelva las filas en el orden de VALUES: cada fila lleva su posición
+    // en el chunk (ordinal) y toma su id de la secuencia antes del INSERT, así cada id vuelve junto a su ordinal
+    private Mono<Void> insertChunk(List<MovementDto> chunk) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append('(').append(i)
+                    .append(", :type").append(i)
+                    .append(", :value").append(i)
+                    .append(", :balance").append(i)
+                    .append(')');
+        }
+        String sql = """
+                WITH batch (ordinal, movement_type, value, balance) AS (VALUES %s),
+                numbered AS (
+                    SELECT batch.*, nextval(pg_get_serial_sequence('movements', 'id')) AS id FROM batch
+                ),
+                inserted AS (
+                    INSERT INTO movements (id, account_id, movement_date, movement_type, value, balance, created_at)
+                    SELECT id, :accountId, :movementDate, movement_type, CAST(value AS DECIMAL(19, 2)),
+                           CAST(balance AS DECIMAL(19, 2)), :movementDate
+                    FROM numbered
+                    RETURNING id
+                )
+                SELECT numbered.ordinal, inserted.id FROM numbered JOIN inserted ON inserted.id = numbered.id
+                """.formatted(values);
+        
+        MovementDto first = chunk.get(0);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("accountId", first.getAccountId())
+                .bind("movementDate", first.getMovementDate());
+        for (int i = 0; i < chunk.size(); i++) {
+            MovementDto movement = chunk.get(i);
+            spec = spec.bind("type" + i, movement.getMovementType())
+                    .bind("value" + i, movement.getValue())
+                    .bind("balance" + i, movement.getBalance());
+        }
+        return spec.map(row -> Map.entry(row.get("ordinal", Integer.class), row.get("id", Long.class)))
+                .all()
+                .doOnNext(inserted -> chunk.get(inserted.getKey()).setId(inserted.getValue()))
+                .then();
+    }
+    
+    private Mono<Void> updateBalance(Long accountId, BigDecimal balance, LocalDateTime now) {
+        return databaseClient.sql("UPDATE accounts SET current_balance = :balance, updated_at = :updatedAt WHERE id = :id")
+                .bind("balance", balance)
+                .bind("updatedAt", now)
+                .bind("id", accountId)
+                .then();
+    }
+    
+    private String validate(MovementDto movementDto) {
+        if (movementDto == null || movementDto.getAccountId() == null) {
+            return "Account ID is required";
+        }
+        if (movementDto.getValue() == null || movementDto.getValue().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Movement value must be greater than zero";
+        }
+        if (!DEBIT.equalsIgnoreCase(movementDto.getMovementType()) && !CREDIT.equalsIgnoreCase(movementDto.getMovementType())) {
+            return "Invalid movement type. Must be DEBIT or CREDIT";
+        }
+        return null;
+    }
+    
+    private List<MovementBatchItemResultDto> rejectAll(List<BatchItem> items, String error) {
+        List<MovementBatchItemResultDto> results = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            results.add(failure(item.index(), error));
+        }
+        return results;
+    }
+    
+    private MovementBatchItemResultDto failure(int index, String error) {
+        return MovementBatchItemResultDto.builder()
+                .index(index)
+                .success(false)
+                .error(error)
+                .build();
+    }
+    
+    private record BatchItem(int index, MovementDto movement) {
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa los movimientos que llegan dentro de una ventana corta (o hasta completar N) en una sola
+ * transacción, para pagar un único commit por grupo. Cada llamador recibe su propio resultado o error:
+ * si el grupo falla, sus movimientos se reintentan uno por uno en transacciones independientes.
+ */
+@Slf4j
+@Component
+public class MovementGroupCommitter {
+    
+    private final TransactionalOperator transactionalOperator;
+    private final boolean enabled;
+    private final Sinks.Many<PendingWork<?>> pending = Sinks.many().unicast().onBackpressureBuffer();
+    private final DistributionSummary batchSize;
+    private final Counter fallbacks;
+    private final Counter directs;
+    private final Disposable subscription;
+    
+    public MovementGroupCommitter(TransactionalOperator transactionalOperator,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${movement.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${movement.group-commit.window:2ms}") Duration window,
+                                  @Value("${movement.group-commit.max-batch-size:64}") int maxBatchSize,
+                                  @Value("${movement.group-commit.max-concurrent-batches:4}") int maxConcurrentBatches) {
+        this.transactionalOperator = transactionalOperator;
+        this.enabled = enabled;
+        this.batchSize = DistributionSummary.builder("movement.group-commit.batch.size")
+                .description("Movements committed together in one transaction")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("movement.group-commit.fallbacks")
+                .description("Groups that failed and were retried movement by movement")
+                .register(meterRegistry);
+        this.directs = Counter.builder("movement.group-commit.direct")
+                .description("Movements posted outside a group because the queue did not accept them")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Movement group commit enabled: window {}, max batch size {}, max concurrent batches {}",
+                    window, maxBatchSize, maxConcurrentBatches);
+            this.subscription = pending.asFlux()
+                    .bufferTimeout(maxBatchSize, window)
+                    .flatMap(this::commitBatch, maxConcurrentBatches)
+                    .subscribe();
+        } else {
+            this.subscription = null;
+        }
+    }
+    
+    public <T> Mono<T> submit(Supplier<Mono<T>> work) {
+        if (!enabled) {
+            return Mono.defer(work);
+        }
+        return Mono.create(sink -> {
+            PendingWork<T> pendingWork = new PendingWork<>(work, sink);
+            // El llamador suele ser un hilo del event loop: nunca se espera a que el sink acepte el elemento.
+            // El bloqueo solo serializa emisiones concurrentes (una operación corta); si el sink no acepta
+            // el movimiento (cerrado al apagar), se ejecuta directamente fuera del grupo
+            Sinks.EmitResult result;
+            synchronized (pending) {
+                result = pending.tryEmitNext(pendingWork);
+            }
+            if (result.isFailure()) {
+                log.debug("Group commit unavailable ({}), posting movement directly", result);
+                directs.increment();
+                pendingWork.executeAlone().subscribe();
+            }
+        });
+    }
+    
+    private Mono<Void> commitBatch(List<PendingWork<?>> batch) {
+        batchSize.record(batch.size());
+        return transactionalOperator.transactional(Flux.fromIterable(batch)
+                        .concatMap(PendingWork::executeInGroup)
+                        .then())
+                .doOnSuccess(v -> batch.forEach(PendingWork::complete))
+                .onErrorResume(error -> {
+                    log.warn("Group commit of {} movements failed, retrying them individually: {}", batch.size(), error.getMessage());
+                    fallbacks.increment();
+                    return Flux.fromIterable(batch)
+                            .concatMap(PendingWork::executeAlone)
+                            .then();
+                });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            pending.tryEmitComplete();
+        }
+    }
+    
+    private static final class PendingWork<T> {
+        
+        private final Supplier<Mono<T>> work;
+        private final MonoSink<T> sink;
+        private T result;
+        
+        private PendingWork(Supplier<Mono<T>> work, MonoSink<T> sink) {
+            this.work = work;
+            this.sink = sink;
+        }
+        
+        private Mono<Void> executeInGroup() {
+            result = null;
+            return Mono.defer(work)
+                    .doOnNext(value -> result = value)
+                    .then();
+        }
+        
+        private void complete() {
+            if (result != null) {
+                sink.success(result);
+            } else {
+                sink.success();
+            }
+        }
+        
+        private Mono<Void> executeAlone() {
+            return Mono.defer(work)
+                    .doOnNext(sink::success)
+                    .doOnSuccess(value -> {
+                        if (value == null) {
+                            sink.success();
+                        }
+                    })
+                    .doOnError(sink::error)
+                    .onErrorResume(error -> Mono.empty())
+                    .then();
+        }
+    }
+}
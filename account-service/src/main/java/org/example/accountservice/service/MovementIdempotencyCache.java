@@ -0,0 +1,40 @@
+package org.example.accountservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.accountservice.dto.MovementDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Respuestas recientes de POST /api/v1/movements por Idempotency-Key, para contestar los reintentos
+ * sin consultar la base de datos. La tabla movement_idempotency_keys sigue siendo la fuente de verdad.
+ */
+@Component
+public class MovementIdempotencyCache {
+    
+    private final Cache<String, MovementDto> cache;
+    
+    public MovementIdempotencyCache(MeterRegistry meterRegistry,
+                                    @Value("${movement.idempotency.cache.max-size:100000}") long maxSize,
+                                    @Value("${movement.idempotency.cache.ttl:PT24H}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "movement.idempotency");
+    }
+    
+    public MovementDto get(String idempotencyKey) {
+        return cache.getIfPresent(idempotencyKey);
+    }
+    
+    public void put(String idempotencyKey, MovementDto movementDto) {
+        cache.put(idempotencyKey, movementDto);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.accountservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Purga de movement_idempotency_keys: un reintento con la misma Idempotency-Key solo se reconoce durante
+ * la ventana de retención, así que las claves más antiguas se borran por lotes para que la tabla no crezca
+ * sin límite. La retención nunca es menor que el TTL de MovementIdempotencyCache: la caché no puede
+ * recordar una clave que la tabla ya olvidó.
+ */
+@Slf4j
+@Service
+public class MovementIdempotencyPurgeService {
+    
+    // Lotes acotados para no mantener bloqueadas muchas filas en una sola transacción
+    private static final String PURGE_BATCH_SQL = """
+            DELETE FROM movement_idempotency_keys
+            WHERE idempotency_key IN (
+                SELECT idempotency_key FROM movement_idempotency_keys
+                WHERE created_at < :cutoff
+                LIMIT :batchSize)
+            """;
+    
+    private final DatabaseClient databaseClient;
+    private final Duration retention;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    public MovementIdempotencyPurgeService(DatabaseClient databaseClient,
+                                           @Value("${movement.idempotency.retention:P7D}") Duration retention,
+                                           @Value("${movement.idempotency.cache.ttl:PT24H}") Duration cacheTtl,
+                                           @Value("${movement.idempotency.purge-batch-size:10000}") int batchSize) {
+        this.databaseClient = databaseClient;
+        if (retention.compareTo(cacheTtl) < 0) {
+            log.warn("Idempotency key retention {} is shorter than the cache TTL {}, using the cache TTL", retention, cacheTtl);
+            retention = cacheTtl;
+        }
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(cron = "${movement.idempotency.purge-cron:0 30 0 * * *}")
+    public void purgeExpiredKeys() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Idempotency key purge is still running, skipping this execution");
+            return;
+        }
+        purgeOlderThan(LocalDateTime.now().minus(retention))
+                .doFinally(signal -> running.set(false))
+                .subscribe(
+                        deleted -> { },
+                        error -> log.error("Error purging idempotency keys: {}", error.getMessage(), error));
+    }
+    
+    // Borra lotes hasta que uno sale incompleto; devuelve el total de claves borradas
+    Mono<Long> purgeOlderThan(LocalDateTime cutoff) {
+        return purgeBatch(cutoff)
+                .expand(deleted -> deleted < batchSize ? Mono.empty() : purgeBatch(cutoff))
+                .reduce(0L, Long::sum)
+                .doOnSuccess(deleted -> log.info("Purged {} idempotency keys created before {}", deleted, cutoff));
+    }
+    
+    private Mono<Long> purgeBatch(LocalDateTime cutoff) {
+        return databaseClient.sql(PURGE_BATCH_SQL)
+                .bind("cutoff", cutoff)
+                .bind("batchSize", batchSize)
+                .fetch()
+                .rowsUpdated();
+    }
+}
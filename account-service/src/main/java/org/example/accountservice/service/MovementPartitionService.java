@@ -0,0 +1,135 @@
+package org.example.accountservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+/**
+ * Mantenimiento de las particiones mensuales de movements: crea por adelantado las de los próximos
+ * meses y, si hay retención configurada, desacopla las más antiguas. Postgres no admite DETACH
+ * CONCURRENTLY con partición por defecto (movements_default), así que el DETACH es normal con un
+ * lock_timeout corto: si no obtiene el lock se reintenta en la siguiente ejecución en vez de dejar
+ * esperando a las escrituras. Las tablas desacopladas se conservan para archivarlas.
+ */
+@Slf4j
+@Service
+public class MovementPartitionService {
+    
+    private static final Pattern PARTITION_NAME = Pattern.compile("movements_\\d{4}_\\d{2}");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    
+    // Un mes solo se puede archivar si cada cuenta con movimientos en él tiene un cierre en o después del
+    // día de su último movimiento de ese mes: el saldo a fechas posteriores ya no necesita esas filas
+    private static final String UNCOVERED_ACCOUNTS_SQL = """
+            SELECT COUNT(DISTINCT m.account_id) AS uncovered
+            FROM movements m
+            WHERE m.movement_date >= :monthStart AND m.movement_date < :monthEnd
+              AND NOT EXISTS (
+                  SELECT 1 FROM account_balance_checkpoints c
+                  WHERE c.account_id = m.account_id AND c.checkpoint_date >= CAST(m.movement_date AS DATE))
+            """;
+    
+    private final DatabaseClient databaseClient;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Duration detachLockTimeout;
+    
+    public MovementPartitionService(DatabaseClient databaseClient,
+                                    @Value("${movement.partitions.months-ahead:3}") int monthsAhead,
+                                    @Value("${movement.partitions.retention-months:0}") int retentionMonths,
+                                    @Value("${movement.partitions.detach-lock-timeout:5s}") Duration detachLockTimeout) {
+        this.databaseClient = databaseClient;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.detachLockTimeout = detachLockTimeout;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+    
+    @Scheduled(cron = "${movement.partitions.cron:0 0 1 * * *}")
+    public void maintainPartitions() {
+        createFuturePartitions()
+                .then(retentionMonths > 0 ? detachExpiredPartitions() : Mono.empty())
+                .subscribe(
+                        v -> { },
+                        error -> log.error("Error maintaining movement partitions: {}", error.getMessage(), error));
+    }
+    
+    public Mono<Void> createFuturePartitions() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        return Flux.range(0, monthsAhead + 1)
+                .concatMap(offset -> databaseClient.sql("SELECT create_movements_partition(:month) AS partition_name")
+                        .bind("month", currentMonth.plusMonths(offset))
+                        .map(row -> row.get("partition_name", String.class))
+                        .one())
+                .collectList()
+                .doOnNext(partitions -> log.info("Movement partitions available: {}", partitions))
+                .then();
+    }
+    
+    // Solo se desacoplan meses ya cubiertos por los cierres diarios de saldo de todas sus cuentas, para que
+    // el saldo a una fecha posterior siga siendo correcto sin los movimientos archivados
+    public Mono<Void> detachExpiredPartitions() {
+        String cutoff = "movements_" + LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths).format(PARTITION_SUFFIX);
+        return databaseClient.sql("""
+                        SELECT c.relname AS partition_name
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'movements'::regclass
+                          AND c.relname < :cutoff
+                        ORDER BY c.relname
+                        """)
+                .bind("cutoff", cutoff)
+                .map(row -> row.get("partition_name", String.class))
+                .all()
+                .filter(name -> PARTITION_NAME.matcher(name).matches())
+                .concatMap(name -> coveredByCheckpoints(name)
+                        .flatMap(covered -> covered ? detachPartition(name) : Mono.empty()))
+                .then();
+    }
+    
+    private Mono<Boolean> coveredByCheckpoints(String partitionName) {
+        LocalDate monthStart = YearMonth.parse(partitionName.substring("movements_".length()), PARTITION_SUFFIX).atDay(1);
+        return databaseClient.sql(UNCOVERED_ACCOUNTS_SQL)
+                .bind("monthStart", monthStart.atStartOfDay())
+                .bind("monthEnd", monthStart.plusMonths(1).atStartOfDay())
+                .map(row -> row.get("uncovered", Long.class))
+                .one()
+                .map(uncovered -> {
+                    if (uncovered > 0) {
+                        log.warn("Movement partition {} kept: {} accounts have no balance checkpoint covering it", partitionName, uncovered);
+                    }
+                    return uncovered == 0;
+                });
+    }
+    
+    // El nombre ya pasó por PARTITION_NAME; SET LOCAL limita el lock_timeout a la transacción del bloque DO
+    private Mono<Void> detachPartition(String partitionName) {
+        log.info("Detaching movement partition {}", partitionName);
+        return databaseClient.sql("""
+                        DO $$
+                        BEGIN
+                            SET LOCAL lock_timeout = '%dms';
+                            ALTER TABLE movements DETACH PARTITION %s;
+                        END
+                        $$
+                        """.formatted(detachLockTimeout.toMillis(), partitionName))
+                .then()
+                .doOnSuccess(v -> log.info("Movement partition {} detached", partitionName));
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serializa el trabajo por cuenta sin bloquear hilos: cada cuenta se asigna a una franja (stripe)
+ * con su propia cola, y dentro de una franja solo hay una operación en curso a la vez.
+ * Cuentas en franjas distintas se procesan en paralelo.
+ */
+@Slf4j
+@Component
+public class MovementSequencer {
+    
+    private final Stripe[] stripes;
+    
+    public MovementSequencer(MeterRegistry meterRegistry,
+                             @Value("${movement.sequencer.stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("movement.sequencer.stripes must be greater than zero");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i, meterRegistry);
+        }
+        log.info("Movement sequencer configured with {} stripes", stripeCount);
+    }
+    
+    public <T> Mono<T> submit(Long accountId, Supplier<Mono<T>> work) {
+        return Mono.create(sink -> stripeFor(accountId).enqueue(new Task<>(work, sink)));
+    }
+    
+    private Stripe stripeFor(Long accountId) {
+        long key = accountId != null ? accountId : 0L;
+        int hash = Long.hashCode(key * 0x9E3779B97F4A7C15L);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+    
+    private static final class Task<T> {
+        
+        private final Supplier<Mono<T>> work;
+        private final MonoSink<T> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private volatile boolean cancelled;
+        
+        private Task(Supplier<Mono<T>> work, MonoSink<T> sink) {
+            this.work = work;
+            this.sink = sink;
+            sink.onCancel(() -> cancelled = true);
+        }
+        
+        private Mono<T> run() {
+            return Mono.defer(work)
+                    .contextWrite(sink.contextView())
+                    .doOnNext(sink::success)
+                    .doOnError(sink::error)
+                    .doOnSuccess(value -> {
+                        if (value == null) {
+                            sink.success();
+                        }
+                    });
+        }
+    }
+    
+    private static final class Stripe {
+        
+        private static final int RUNNING = 0;
+        private static final int COMPLETED_INLINE = 1;
+        private static final int COMPLETING_LATER = 2;
+        
+        private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final Timer waitTimer;
+        
+        private Stripe(int index, MeterRegistry meterRegistry) {
+            String stripe = String.valueOf(index);
+            Gauge.builder("movement.sequencer.queue.depth", depth, AtomicInteger::get)
+                    .description("Movements waiting in the sequencer stripe")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("movement.sequencer.wait")
+                    .description("Time a movement waits in the sequencer stripe before it starts")
+                    .tag("stripe", stripe)
+                    .register(meterRegistry);
+        }
+        
+        private void enqueue(Task<?> task) {
+            queue.offer(task);
+            depth.incrementAndGet();
+            drain();
+        }
+        
+        // Si la tarea termina de forma síncrona (dentro de subscribe) el mismo bucle toma la siguiente, sin
+        // recursión; si termina después, su doFinally reanuda el drenado desde el hilo que la completó
+        private void drain() {
+            while (running.compareAndSet(false, true)) {
+                Task<?> task = queue.poll();
+                if (task == null) {
+                    running.set(false);
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                depth.decrementAndGet();
+                waitTimer.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+                if (task.cancelled) {
+                    running.set(false);
+                    continue;
+                }
+                AtomicInteger completion = new AtomicInteger(RUNNING);
+                task.run()
+                        .doFinally(signal -> {
+                            if (!completion.compareAndSet(RUNNING, COMPLETED_INLINE)) {
+                                running.set(false);
+                                drain();
+                            }
+                        })
+                        .subscribe(value -> { }, error -> { });
+                if (completion.compareAndSet(RUNNING, COMPLETING_LATER)) {
+                    return;
+                }
+                running.set(false);
+            }
+        }
+    }
+}
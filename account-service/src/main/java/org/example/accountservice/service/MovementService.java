@@ -3,18 +3,31 @@ package org.example.accountservice.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.accountservice.dto.MovementDto;
-import org.example.accountservice.entity.Account;
+import org.example.accountservice.dto.MovementPageDto;
 import org.example.accountservice.entity.Movement;
 import org.example.accountservice.mapper.MovementMapper;
 import org.example.accountservice.repository.AccountRepository;
 import org.example.accountservice.repository.MovementRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -24,12 +37,24 @@ public class MovementService {
     private final MovementRepository movementRepository;
     private final AccountRepository accountRepository;
     private final MovementMapper movementMapper;
+    private final MovementSequencer movementSequencer;
+    private final MovementIdempotencyCache idempotencyCache;
+    private final MovementGroupCommitter groupCommitter;
+    private final AccountCache accountCache;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final StatementCache statementCache;
+    private final DailyRollupService dailyRollupService;
     
     private static final String DEBIT = "DEBIT";
     private static final String CREDIT = "CREDIT";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
     
-    @Transactional
     public Mono<MovementDto> createMovement(MovementDto movementDto) {
+        return createMovement(movementDto, null);
+    }
+    
+    public Mono<MovementDto> createMovement(MovementDto movementDto, String idempotencyKey) {
         log.info("Creating movement of type: {} with value: {} for account: {}", 
                 movementDto.getMovementType(), movementDto.getValue(), movementDto.getAccountId());
         
@@ -37,41 +62,91 @@ public class MovementService {
             return Mono.error(new IllegalArgumentException("Movement value must be greater than zero"));
         }
         
+        BigDecimal delta;
+        if (DEBIT.equalsIgnoreCase(movementDto.getMovementType())) {
+            delta = movementDto.getValue().negate();
+        } else if (CREDIT.equalsIgnoreCase(movementDto.getMovementType())) {
+            delta = movementDto.getValue();
+        } else {
+            return Mono.error(new IllegalArgumentException("Invalid movement type. Must be DEBIT or CREDIT"));
+        }
+        
+        String key = StringUtils.hasText(idempotencyKey) ? idempotencyKey.trim() : null;
+        if (key != null) {
+            if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return Mono.error(new IllegalArgumentException("Idempotency-Key must not exceed " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+            }
+            MovementDto cached = idempotencyCache.get(key);
+            if (cached != null) {
+                log.info("Replaying movement {} for Idempotency-Key {}", cached.getId(), key);
+                return replay(cached, movementDto, key);
+            }
+        }
+        
+        String movementType = movementDto.getMovementType().toUpperCase();
+        
+        // La actualización del saldo y el registro del movimiento se hacen en una sola sentencia condicional,
+        // por lo que no se necesita una transacción explícita ni leer la cuenta antes de escribir.
+        // Los movimientos de una misma cuenta se encolan para no competir por el bloqueo de su fila.
+        // Con el modo group commit activo, la sentencia se ejecuta dentro de la transacción compartida del grupo.
+        return movementSequencer.submit(movementDto.getAccountId(), () -> groupCommitter.submit(() -> key == null
+                        ? movementRepository.postMovement(movementDto.getAccountId(), movementType,
+                                movementDto.getValue(), delta, LocalDateTime.now())
+                        : movementRepository.postMovementWithIdempotencyKey(movementDto.getAccountId(), movementType,
+                                movementDto.getValue(), delta, LocalDateTime.now(), key)))
+                .doOnNext(movement -> accountCache.updateBalance(movement.getAccountId(), movement.getBalance(), movement.getMovementDate()))
+                .doOnNext(movement -> statementCache.invalidateMovement(movement.getAccountId(), movement.getMovementDate()))
+                .map(movementMapper::toDto)
+                .doOnNext(m -> {
+                    if (key != null) {
+                        idempotencyCache.put(key, m);
+                    }
+                })
+                // Sin fila la cuenta no admitió el movimiento; con clave puede ser un reintento que no estaba en la
+                // caché local (otra instancia, expulsado o vencido) y cuyo débito original ya dejó la cuenta sin saldo
+                .switchIfEmpty(Mono.defer(() -> key == null
+                        ? rejectMovement(movementDto).map(movementMapper::toDto)
+                        : findOriginal(key, movementDto)
+                                .switchIfEmpty(Mono.defer(() -> rejectMovement(movementDto).map(movementMapper::toDto)))))
+                .onErrorResume(DuplicateKeyException.class, error -> findOriginal(key, movementDto)
+                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                "Idempotency-Key " + key + " refers to a movement that no longer exists"))))
+                .doOnSuccess(m -> log.info("Movement created successfully with ID: {}", m.getId()))
+                .doOnError(error -> log.error("Error creating movement: {}", error.getMessage()));
+    }
+    
+    private Mono<MovementDto> findOriginal(String idempotencyKey, MovementDto request) {
+        return movementRepository.findByIdempotencyKey(idempotencyKey)
+                .map(movementMapper::toDto)
+                .doOnNext(m -> {
+                    log.info("Replaying movement {} for Idempotency-Key {}", m.getId(), idempotencyKey);
+                    idempotencyCache.put(idempotencyKey, m);
+                })
+                .flatMap(m -> replay(m, request, idempotencyKey));
+    }
+    
+    private Mono<MovementDto> replay(MovementDto original, MovementDto request, String idempotencyKey) {
+        boolean sameRequest = original.getAccountId().equals(request.getAccountId())
+                && original.getMovementType().equalsIgnoreCase(request.getMovementType())
+                && original.getValue().compareTo(request.getValue()) == 0;
+        if (!sameRequest) {
+            return Mono.error(new IllegalArgumentException("Idempotency-Key " + idempotencyKey + " was already used for a different movement"));
+        }
+        return Mono.just(original);
+    }
+    
+    private Mono<Movement> rejectMovement(MovementDto movementDto) {
         return accountRepository.findById(movementDto.getAccountId())
+                .doOnNext(accountCache::put)
                 .switchIfEmpty(Mono.error(new RuntimeException("Account not found with ID: " + movementDto.getAccountId())))
                 .flatMap(account -> {
                     if (!account.getStatus()) {
                         return Mono.error(new RuntimeException("Account is inactive"));
                     }
-                    
-                    BigDecimal newBalance;
-                    if (DEBIT.equalsIgnoreCase(movementDto.getMovementType())) {
-                        newBalance = account.getCurrentBalance().subtract(movementDto.getValue());
-                        if (newBalance.compareTo(BigDecimal.ZERO) < 0) {
-                            log.warn("Insufficient balance for account: {}. Current: {}, Requested: {}", 
-                                    account.getId(), account.getCurrentBalance(), movementDto.getValue());
-                            return Mono.error(new RuntimeException("Saldo no disponible"));
-                        }
-                    } else if (CREDIT.equalsIgnoreCase(movementDto.getMovementType())) {
-                        newBalance = account.getCurrentBalance().add(movementDto.getValue());
-                    } else {
-                        return Mono.error(new IllegalArgumentException("Invalid movement type. Must be DEBIT or CREDIT"));
-                    }
-                    
-                    account.setCurrentBalance(newBalance);
-                    account.setUpdatedAt(LocalDateTime.now());
-                    
-                    Movement movement = movementMapper.toEntity(movementDto);
-                    movement.setMovementDate(LocalDateTime.now());
-                    movement.setBalance(newBalance);
-                    movement.setCreatedAt(LocalDateTime.now());
-                    
-                    return accountRepository.save(account)
-                            .then(movementRepository.save(movement));
-                })
-                .map(movementMapper::toDto)
-                .doOnSuccess(m -> log.info("Movement created successfully with ID: {}", m.getId()))
-                .doOnError(error -> log.error("Error creating movement: {}", error.getMessage()));
+                    log.warn("Insufficient balance for account: {}. Current: {}, Requested: {}", 
+                            account.getId(), account.getCurrentBalance(), movementDto.getValue());
+                    return Mono.error(new RuntimeException("Saldo no disponible"));
+                });
     }
     
     public Mono<MovementDto> getMovementById(Long id) {
@@ -96,14 +171,71 @@ public class MovementService {
                 .doOnError(error -> log.error("Error fetching movements: {}", error.getMessage()));
     }
     
+    public Mono<MovementPageDto> getMovementsPage(String after, int limit) {
+        log.info("Fetching movements page after cursor: {} with limit: {}", after, limit);
+        return fetchPage(after, limit,
+                (cursor, size) -> cursor == null
+                        ? movementRepository.findFirstPage(size)
+                        : movementRepository.findPageAfter(cursor.movementDate(), cursor.id(), size));
+    }
+    
+    public Mono<MovementPageDto> getMovementsPageByAccountId(Long accountId, String after, int limit) {
+        log.info("Fetching movements page for account ID: {} after cursor: {} with limit: {}", accountId, after, limit);
+        return fetchPage(after, limit,
+                (cursor, size) -> cursor == null
+                        ? movementRepository.findFirstPageByAccountId(accountId, size)
+                        : movementRepository.findPageByAccountIdAfter(accountId, cursor.movementDate(), cursor.id(), size));
+    }
+    
+    // Se pide una fila más que el límite: si llega, existe una página siguiente y su cursor es la última fila devuelta
+    private Mono<MovementPageDto> fetchPage(String after, int limit, PageQuery query) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        PageCursor cursor;
+        try {
+            cursor = StringUtils.hasText(after) ? PageCursor.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        return query.fetch(cursor, limit + 1)
+                .collectList()
+                .map(rows -> {
+                    boolean hasMore = rows.size() > limit;
+                    List<Movement> page = hasMore ? rows.subList(0, limit) : rows;
+                    Movement last = page.isEmpty() ? null : page.get(page.size() - 1);
+                    return MovementPageDto.builder()
+                            .movements(page.stream().map(movementMapper::toDto).toList())
+                            .nextCursor(hasMore ? new PageCursor(last.getMovementDate(), last.getId()).encode() : null)
+                            .build();
+                })
+                .doOnError(error -> log.error("Error fetching movements page: {}", error.getMessage()));
+    }
+    
     @Transactional
     public Mono<MovementDto> updateMovement(Long id, MovementDto movementDto) {
         log.info("Updating movement with ID: {}", id);
         return movementRepository.findById(id)
                 .switchIfEmpty(Mono.error(new RuntimeException("Movement not found with ID: " + id)))
                 .flatMap(existing -> {
+                    Long previousAccountId = existing.getAccountId();
+                    LocalDateTime previousDate = existing.getMovementDate();
                     movementMapper.updateEntityFromDto(movementDto, existing);
-                    return movementRepository.save(existing);
+                    LocalDateTime affectedFrom = previousDate != null && existing.getMovementDate() != null
+                            && existing.getMovementDate().isBefore(previousDate)
+                            ? existing.getMovementDate() : previousDate;
+                    return movementRepository.save(existing)
+                            .flatMap(saved -> balanceCheckpointService.invalidateFrom(saved.getAccountId(), affectedFrom)
+                                    .then(Objects.equals(previousAccountId, saved.getAccountId())
+                                            ? Mono.<Void>empty()
+                                            : balanceCheckpointService.invalidateFrom(previousAccountId, previousDate))
+                                    .then(dailyRollupService.rebuildDay(previousAccountId, dayOf(previousDate)))
+                                    .then(dailyRollupService.rebuildDay(saved.getAccountId(), dayOf(saved.getMovementDate())))
+                                    .then(afterCommit(() -> {
+                                        statementCache.invalidateMovement(previousAccountId, previousDate);
+                                        statementCache.invalidateMovement(saved.getAccountId(), saved.getMovementDate());
+                                    }))
+                                    .thenReturn(saved));
                 })
                 .map(movementMapper::toDto)
                 .doOnSuccess(m -> log.info("Movement updated successfully with ID: {}", m.getId()))
@@ -115,9 +247,56 @@ public class MovementService {
         log.info("Deleting movement with ID: {}", id);
         return movementRepository.findById(id)
                 .switchIfEmpty(Mono.error(new RuntimeException("Movement not found with ID: " + id)))
-                .flatMap(movementRepository::delete)
+                .flatMap(existing -> movementRepository.delete(existing)
+                        .then(balanceCheckpointService.invalidateFrom(existing.getAccountId(), existing.getMovementDate()))
+                        .then(dailyRollupService.rebuildDay(existing.getAccountId(), dayOf(existing.getMovementDate())))
+                        .then(afterCommit(() -> statementCache.invalidateMovement(existing.getAccountId(), existing.getMovementDate()))))
                 .doOnSuccess(v -> log.info("Movement deleted successfully with ID: {}", id))
                 .doOnError(error -> log.error("Error deleting movement: {}", error.getMessage()));
     }
+    
+    private static LocalDate dayOf(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toLocalDate() : null;
+    }
+    
+    // Las cachés se invalidan cuando la transacción confirma; una lectura anterior al commit volvería a cachear el dato viejo
+    private Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(manager -> manager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(action);
+                    }
+                }))
+                .then()
+                .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(action));
+    }
+    
+    @FunctionalInterface
+    private interface PageQuery {
+        Flux<Movement> fetch(PageCursor cursor, int limit);
+    }
+    
+    // Posición (movement_date, id) de la última fila entregada, codificada en Base64 URL-safe
+    private record PageCursor(LocalDateTime movementDate, Long id) {
+        
+        private String encode() {
+            String raw = movementDate + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        private static PageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(',');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
 }
-
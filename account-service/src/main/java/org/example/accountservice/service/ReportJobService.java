@@ -0,0 +1,264 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.ReportJobDto;
+import org.example.accountservice.dto.ReportJobRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reportes asíncronos: POST /reports/jobs encola la generación y responde de inmediato con el id del
+ * trabajo. Los trabajos corren en un pool acotado (hilos y cola fijos, con tope de trabajos activos por
+ * cliente) y el resultado se escribe en un archivo temporal que se descarga con transferencia zero-copy.
+ * Los trabajos y sus archivos se eliminan después de report.jobs.retention.
+ */
+@Slf4j
+@Service
+public class ReportJobService {
+    
+    private static final Set<String> FORMATS = Set.of("json", "ndjson", "csv", "excel");
+    private static final Map<String, String> EXTENSIONS = Map.of("json", "json", "ndjson", "ndjson", "csv", "csv", "excel", "xlsx");
+    // Nombre de los archivos que escribe un trabajo: <uuid>.<extensión>
+    private static final Pattern JOB_FILE_NAME = Pattern.compile(
+            "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}\\.("
+                    + String.join("|", Set.copyOf(EXTENSIONS.values())) + ")");
+    
+    private final ReportService reportService;
+    private final Path directory;
+    private final int maxJobsPerClient;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // Trabajos en cola o en curso por cliente; la entrada se quita cuando el cliente no tiene ninguno
+    private final Map<Long, Integer> activeByClient = new ConcurrentHashMap<>();
+    
+    public ReportJobService(ReportService reportService,
+                            MeterRegistry meterRegistry,
+                            @Value("${report.jobs.workers:4}") int workers,
+                            @Value("${report.jobs.queue-capacity:100}") int queueCapacity,
+                            @Value("${report.jobs.max-per-client:2}") int maxJobsPerClient,
+                            @Value("${report.jobs.retention:1h}") Duration retention,
+                            @Value("${report.jobs.directory:${java.io.tmpdir}/account-reports}") String directory) throws IOException {
+        this.reportService = reportService;
+        this.maxJobsPerClient = maxJobsPerClient;
+        this.retention = retention;
+        this.directory = Files.createDirectories(Path.of(directory));
+        deleteLeftoverFiles();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "report.jobs", List.of()).bindTo(meterRegistry);
+        log.info("Report jobs configured with {} workers, queue capacity {} and {} jobs per client in {}",
+                workers, queueCapacity, maxJobsPerClient, this.directory);
+    }
+    
+    public ReportJobDto submit(ReportJobRequestDto request) {
+        String format = request.getFormat() == null || request.getFormat().isBlank() ? "json" : request.getFormat().toLowerCase();
+        if (!FORMATS.contains(format)) {
+            throw new IllegalArgumentException("Invalid report format. Must be one of " + FORMATS);
+        }
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+        
+        if (activeByClient.merge(request.getClientId(), 1, Integer::sum) > maxJobsPerClient) {
+            releaseSlot(request.getClientId());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Client " + request.getClientId() + " already has " + maxJobsPerClient + " report jobs in progress");
+        }
+        
+        String jobId = UUID.randomUUID().toString();
+        Job job = new Job(jobId, request.getClientId(), format, request.getStartDate(), request.getEndDate(),
+                directory.resolve(jobId + "." + EXTENSIONS.get(format)));
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            releaseSlot(request.getClientId());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Report job queue is full, try again later");
+        }
+        log.info("Report job {} queued for client ID: {} in format {}", jobId, request.getClientId(), format);
+        return job.toDto();
+    }
+    
+    public ReportJobDto getJob(String jobId) {
+        return findJob(jobId).toDto();
+    }
+    
+    public FileSystemResource getResult(String jobId) {
+        Job job = findJob(jobId);
+        if (job.status != Status.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Report job " + jobId + " is " + job.status);
+        }
+        return new FileSystemResource(job.file);
+    }
+    
+    public String getFilename(String jobId) {
+        Job job = findJob(jobId);
+        return "estado_cuenta_cliente_" + job.clientId + "_" + jobId + "." + EXTENSIONS.get(job.format);
+    }
+    
+    private void releaseSlot(Long clientId) {
+        activeByClient.computeIfPresent(clientId, (id, active) -> active > 1 ? active - 1 : null);
+    }
+    
+    int activeClientCount() {
+        return activeByClient.size();
+    }
+    
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Report job not found with ID: " + jobId);
+        }
+        return job;
+    }
+    
+    // Se ejecuta en un hilo del pool: bloquear aquí no afecta al event loop
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        log.info("Report job {} started", job.id);
+        Exception failure = null;
+        try (OutputStream outputStream = Files.newOutputStream(job.file)) {
+            reportService.writeAccountStatement(job.clientId, job.startDate, job.endDate, job.format, outputStream);
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            // Antes de publicar el estado final: un cliente que ve el trabajo terminado puede pedir otro
+            releaseSlot(job.clientId);
+        }
+        if (failure != null) {
+            deleteFile(job.file);
+            job.error = failure.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = Status.FAILED;
+            log.error("Report job {} failed: {}", job.id, failure.getMessage());
+            return;
+        }
+        job.sizeBytes = sizeOf(job.file);
+        job.completedAt = LocalDateTime.now();
+        job.status = Status.COMPLETED;
+        log.info("Report job {} completed ({} bytes)", job.id, job.sizeBytes);
+    }
+    
+    @Scheduled(fixedDelayString = "${report.jobs.cleanup-interval:PT5M}")
+    public void removeExpiredJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            boolean finished = job.status == Status.COMPLETED || job.status == Status.FAILED;
+            if (finished && job.completedAt.isBefore(expiredBefore)) {
+                deleteFile(job.file);
+                log.debug("Report job {} expired", job.id);
+                return true;
+            }
+            return false;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    // Los trabajos viven en memoria: los archivos de una ejecución anterior ya no se pueden descargar. El
+    // directorio es configurable y puede no ser exclusivo, así que solo se borran archivos con nombre de trabajo
+    private void deleteLeftoverFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> Files.isRegularFile(file) && JOB_FILE_NAME.matcher(file.getFileName().toString()).matches())
+                    .forEach(ReportJobService::deleteFile);
+        }
+    }
+    
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+    
+    private static final class Job {
+        
+        private final String id;
+        private final Long clientId;
+        private final String format;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+        private final Path file;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile Status status = Status.PENDING;
+        private volatile LocalDateTime completedAt;
+        private volatile Long sizeBytes;
+        private volatile String error;
+        
+        private Job(String id, Long clientId, String format, LocalDateTime startDate, LocalDateTime endDate, Path file) {
+            this.id = id;
+            this.clientId = clientId;
+            this.format = format;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.file = file;
+        }
+        
+        private ReportJobDto toDto() {
+            Status current = status;
+            return ReportJobDto.builder()
+                    .jobId(id)
+                    .clientId(clientId)
+                    .format(format)
+                    .status(current.name())
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .sizeBytes(sizeBytes)
+                    .error(error)
+                    .downloadUrl(current == Status.COMPLETED ? "/reports/jobs/" + id + "/download" : null)
+                    .build();
+        }
+    }
+}
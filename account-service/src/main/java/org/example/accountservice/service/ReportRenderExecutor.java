@@ -0,0 +1,100 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pool dedicado y acotado para armar reportes pesados (Excel) fuera del event loop de Netty. Cada
+ * renderizado toma un permiso al suscribirse y lo libera cuando termina su tarea; sin permisos libres
+ * (hilos y cola llenos) la descarga se rechaza con 503 en vez de encolarse sin límite.
+ */
+@Slf4j
+@Component
+public class ReportRenderExecutor {
+    
+    private final ThreadPoolExecutor executor;
+    private final Semaphore permits;
+    private final Counter rejected;
+    
+    public ReportRenderExecutor(MeterRegistry meterRegistry,
+                                @Value("${report.render.threads:4}") int threads,
+                                @Value("${report.render.queue-capacity:16}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.permits = new Semaphore(threads + queueCapacity);
+        this.rejected = Counter.builder("report.render.rejected").register(meterRegistry);
+        new ExecutorServiceMetrics(executor, "report.render", List.of()).bindTo(meterRegistry);
+        log.info("Report render executor configured with {} threads and queue capacity {}", threads, queueCapacity);
+    }
+    
+    // El writer corre en un hilo del pool y escribe en un OutputStream cuyo contenido se emite como DataBuffers.
+    // Recibe además una señal que se activa si se cancela la suscripción (el cliente cerró la descarga): un
+    // writer que acumula antes de escribir (como SXSSF) debe consultarla para dejar de trabajar
+    public Flux<DataBuffer> render(BiConsumer<OutputStream, BooleanSupplier> writer, DataBufferFactory bufferFactory) {
+        return Flux.defer(() -> {
+            if (!permits.tryAcquire()) {
+                rejected.increment();
+                return Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Report rendering capacity exhausted, try again later"));
+            }
+            AtomicBoolean cancelled = new AtomicBoolean();
+            return Flux.from(DataBufferUtils.outputStreamPublisher(outputStream -> writer.accept(outputStream, cancelled::get),
+                            bufferFactory, releasingPermit()))
+                    .doOnCancel(() -> cancelled.set(true));
+        });
+    }
+    
+    // El permiso se devuelve al terminar la tarea, no al cancelar la suscripción: así la cola nunca se desborda
+    private Executor releasingPermit() {
+        return task -> {
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        };
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,34 +1,80 @@
 package org.example.accountservice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.example.accountservice.dto.AccountSummaryDto;
 import org.example.accountservice.dto.MovementReportDto;
-import org.example.accountservice.entity.Movement;
+import org.example.accountservice.dto.StatementRow;
 import org.example.accountservice.repository.AccountRepository;
 import org.example.accountservice.repository.MovementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ReportService {
     
+    // Filas pedidas por adelantado a cada cuenta durante el merge ordenado
+    private static final int MERGE_PREFETCH = 32;
+    
+    // SXSSF mantiene en memoria solo las últimas filas; el resto se vuelca a un archivo temporal comprimido
+    private static final int EXCEL_ROW_WINDOW = 100;
+    private static final String[] EXCEL_HEADERS = {"Fecha", "Cliente", "Número Cuenta", "Tipo", "Saldo Inicial", 
+                                                   "Estado", "Valor movimiento", "Tipo Movimiento", "Saldo Disponible"};
+    // Anchos fijos (en caracteres): autoSizeColumn necesitaría recorrer todas las filas
+    private static final int[] EXCEL_COLUMN_WIDTHS = {22, 30, 18, 14, 16, 10, 18, 18, 18};
+    
+    private static final String CSV_HEADER = 
+            "fecha,cliente,numero_cuenta,tipo,saldo_inicial,estado,valor_movimiento,tipo_movimiento,saldo_disponible\n";
+    
     private final AccountRepository accountRepository;
     private final MovementRepository movementRepository;
-    private final CustomerClientService customerClientService;
+    private final CustomerProjectionService customerProjectionService;
+    private final StatementCache statementCache;
+    private final DailyRollupService dailyRollupService;
+    private final ObjectMapper objectMapper;
+    private final ReportRenderExecutor renderExecutor;
+    private final int maxMergedAccounts;
+    
+    public ReportService(AccountRepository accountRepository,
+                         MovementRepository movementRepository,
+                         CustomerProjectionService customerProjectionService,
+                         StatementCache statementCache,
+                         DailyRollupService dailyRollupService,
+                         ObjectMapper objectMapper,
+                         ReportRenderExecutor renderExecutor,
+                         @Value("${report.merge.max-accounts:8}") int maxMergedAccounts) {
+        this.accountRepository = accountRepository;
+        this.movementRepository = movementRepository;
+        this.customerProjectionService = customerProjectionService;
+        this.statementCache = statementCache;
+        this.dailyRollupService = dailyRollupService;
+        this.objectMapper = objectMapper;
+        this.renderExecutor = renderExecutor;
+        this.maxMergedAccounts = maxMergedAccounts;
+    }
     
     public Mono<List<MovementReportDto>> generateAccountStatement(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Generating account statement for client ID: {} from {} to {}", clientId, startDate, endDate);
@@ -38,201 +84,290 @@ public class ReportService {
                 .doOnError(error -> log.error("Error generating account statement: {}", error.getMessage()));
     }
     
-    public Mono<byte[]> generateAccountStatementExcel(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
+    public Flux<DataBuffer> streamAccountStatementExcel(Long clientId, LocalDateTime startDate, LocalDateTime endDate,
+                                                        DataBufferFactory bufferFactory) {
         log.info("Generating Excel account statement for client ID: {} from {} to {}", clientId, startDate, endDate);
         
-        return generateMovementReport(clientId, startDate, endDate)
-                .map(movements -> {
-                    try (Workbook workbook = new XSSFWorkbook()) {
-                        Sheet sheet = workbook.createSheet("Estado de Cuenta");
-                        
-                        CellStyle headerStyle = workbook.createCellStyle();
-                        Font headerFont = workbook.createFont();
-                        headerFont.setBold(true);
-                        headerFont.setFontHeightInPoints((short) 12);
-                        headerStyle.setFont(headerFont);
-                        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-                        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-                        headerStyle.setBorderBottom(BorderStyle.THIN);
-                        headerStyle.setBorderTop(BorderStyle.THIN);
-                        headerStyle.setBorderLeft(BorderStyle.THIN);
-                        headerStyle.setBorderRight(BorderStyle.THIN);
-                        headerStyle.setAlignment(HorizontalAlignment.CENTER);
-                        
-                        CellStyle dataStyle = workbook.createCellStyle();
-                        dataStyle.setBorderBottom(BorderStyle.THIN);
-                        dataStyle.setBorderTop(BorderStyle.THIN);
-                        dataStyle.setBorderLeft(BorderStyle.THIN);
-                        dataStyle.setBorderRight(BorderStyle.THIN);
-                        
-                        CellStyle dateStyle = workbook.createCellStyle();
-                        dateStyle.cloneStyleFrom(dataStyle);
-                        CreationHelper createHelper = workbook.getCreationHelper();
-                        dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("dd/MM/yyyy HH:mm:ss"));
-                        
-                        CellStyle numberStyle = workbook.createCellStyle();
-                        numberStyle.cloneStyleFrom(dataStyle);
-                        numberStyle.setDataFormat(createHelper.createDataFormat().getFormat("#,##0.00"));
-                        
-                        CellStyle booleanStyle = workbook.createCellStyle();
-                        booleanStyle.cloneStyleFrom(dataStyle);
-                        booleanStyle.setAlignment(HorizontalAlignment.CENTER);
-                        
-                        int rowNum = 0;
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-                        
-                        Row headerRow = sheet.createRow(rowNum++);
-                        String[] headers = {"Fecha", "Cliente", "Número Cuenta", "Tipo", "Saldo Inicial", 
-                                           "Estado", "Valor movimiento", "Tipo Movimiento", "Saldo Disponible"};
-                        for (int i = 0; i < headers.length; i++) {
-                            Cell cell = headerRow.createCell(i);
-                            cell.setCellValue(headers[i]);
-                            cell.setCellStyle(headerStyle);
-                        }
-                        
-                        for (MovementReportDto movement : movements) {
-                            Row movementRow = sheet.createRow(rowNum++);
-                            int colNum = 0;
-                            
-                            Cell dateCell = movementRow.createCell(colNum++);
-                            if (movement.getFecha() != null) {
-                                dateCell.setCellValue(movement.getFecha().format(formatter));
-                            }
-                            dateCell.setCellStyle(dateStyle);
-                            
-                            Cell clienteCell = movementRow.createCell(colNum++);
-                            clienteCell.setCellValue(movement.getCliente() != null ? movement.getCliente() : "");
-                            clienteCell.setCellStyle(dataStyle);
-                            
-                            Cell numeroCuentaCell = movementRow.createCell(colNum++);
-                            numeroCuentaCell.setCellValue(movement.getNumeroCuenta() != null ? movement.getNumeroCuenta() : "");
-                            numeroCuentaCell.setCellStyle(dataStyle);
-                            
-                            Cell tipoCell = movementRow.createCell(colNum++);
-                            tipoCell.setCellValue(movement.getTipo() != null ? movement.getTipo() : "");
-                            tipoCell.setCellStyle(dataStyle);
-                            
-                            Cell saldoInicialCell = movementRow.createCell(colNum++);
-                            if (movement.getSaldoInicial() != null) {
-                                saldoInicialCell.setCellValue(movement.getSaldoInicial().doubleValue());
-                            }
-                            saldoInicialCell.setCellStyle(numberStyle);
-                            
-                            Cell estadoCell = movementRow.createCell(colNum++);
-                            if (movement.getEstado() != null) {
-                                estadoCell.setCellValue(movement.getEstado() ? "True" : "False");
-                            }
-                            estadoCell.setCellStyle(booleanStyle);
-                            
-                            Cell valorMovimientoCell = movementRow.createCell(colNum++);
-                            if (movement.getValorMovimiento() != null) {
-                                valorMovimientoCell.setCellValue(movement.getValorMovimiento().doubleValue());
-                            }
-                            valorMovimientoCell.setCellStyle(numberStyle);
-                            
-                            Cell tipoMovimientoCell = movementRow.createCell(colNum++);
-                            tipoMovimientoCell.setCellValue(movement.getTipoMovimiento() != null ? movement.getTipoMovimiento() : "");
-                            tipoMovimientoCell.setCellStyle(dataStyle);
-                            
-                            Cell saldoDisponibleCell = movementRow.createCell(colNum++);
-                            if (movement.getSaldoDisponible() != null) {
-                                saldoDisponibleCell.setCellValue(movement.getSaldoDisponible().doubleValue());
-                            }
-                            saldoDisponibleCell.setCellStyle(numberStyle);
-                        }
-                        
-                        for (int i = 0; i < headers.length; i++) {
-                            sheet.autoSizeColumn(i);
-                        }
-                        
-                        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                        workbook.write(outputStream);
-                        return outputStream.toByteArray();
-                    } catch (IOException e) {
-                        log.error("Error generating Excel file: {}", e.getMessage(), e);
-                        throw new RuntimeException("Error generating Excel file", e);
-                    }
-                })
-                .doOnSuccess(bytes -> log.info("Excel account statement generated successfully for client ID: {}", clientId))
+        Flux<MovementReportDto> rows = streamMovementReport(clientId, startDate, endDate);
+        return renderExecutor.render((outputStream, cancelled) -> writeExcel(rows, outputStream, cancelled), bufferFactory)
+                .doOnComplete(() -> log.info("Excel account statement generated successfully for client ID: {}", clientId))
                 .doOnError(error -> log.error("Error generating Excel account statement: {}", error.getMessage()));
     }
     
+    // Se ejecuta en un hilo de ReportRenderExecutor, nunca en el event loop: consume las filas a medida que llegan de la base de datos.
+    // SXSSF no escribe en outputStream hasta el final, así que la cancelación se revisa en cada fila; al salir
+    // del try se cierra el stream de filas y se cancela la consulta
+    private void writeExcel(Flux<MovementReportDto> rows, OutputStream outputStream, BooleanSupplier cancelled) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try (Stream<MovementReportDto> movements = rows.toStream()) {
+            SXSSFSheet sheet = workbook.createSheet("Estado de Cuenta");
+            for (int i = 0; i < EXCEL_COLUMN_WIDTHS.length; i++) {
+                sheet.setColumnWidth(i, EXCEL_COLUMN_WIDTHS[i] * 256);
+            }
+            
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerFont.setFontHeightInPoints((short) 12);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            headerStyle.setBorderBottom(BorderStyle.THIN);
+            headerStyle.setBorderTop(BorderStyle.THIN);
+            headerStyle.setBorderLeft(BorderStyle.THIN);
+            headerStyle.setBorderRight(BorderStyle.THIN);
+            headerStyle.setAlignment(HorizontalAlignment.CENTER);
+            
+            CellStyle dataStyle = workbook.createCellStyle();
+            dataStyle.setBorderBottom(BorderStyle.THIN);
+            dataStyle.setBorderTop(BorderStyle.THIN);
+            dataStyle.setBorderLeft(BorderStyle.THIN);
+            dataStyle.setBorderRight(BorderStyle.THIN);
+            
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.cloneStyleFrom(dataStyle);
+            CreationHelper createHelper = workbook.getCreationHelper();
+            dateStyle.setDataFormat(createHelper.createDataFormat().getFormat("dd/MM/yyyy HH:mm:ss"));
+            
+            CellStyle numberStyle = workbook.createCellStyle();
+            numberStyle.cloneStyleFrom(dataStyle);
+            numberStyle.setDataFormat(createHelper.createDataFormat().getFormat("#,##0.00"));
+            
+            CellStyle booleanStyle = workbook.createCellStyle();
+            booleanStyle.cloneStyleFrom(dataStyle);
+            booleanStyle.setAlignment(HorizontalAlignment.CENTER);
+            
+            int rowNum = 0;
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+            
+            Row headerRow = sheet.createRow(rowNum++);
+            for (int i = 0; i < EXCEL_HEADERS.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(EXCEL_HEADERS[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            
+            Iterator<MovementReportDto> iterator = movements.iterator();
+            while (iterator.hasNext()) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Excel account statement download was cancelled");
+                }
+                MovementReportDto movement = iterator.next();
+                Row movementRow = sheet.createRow(rowNum++);
+                int colNum = 0;
+                
+                Cell dateCell = movementRow.createCell(colNum++);
+                if (movement.getFecha() != null) {
+                    dateCell.setCellValue(movement.getFecha().format(formatter));
+                }
+                dateCell.setCellStyle(dateStyle);
+                
+                Cell clienteCell = movementRow.createCell(colNum++);
+                clienteCell.setCellValue(movement.getCliente() != null ? movement.getCliente() : "");
+                clienteCell.setCellStyle(dataStyle);
+                
+                Cell numeroCuentaCell = movementRow.createCell(colNum++);
+                numeroCuentaCell.setCellValue(movement.getNumeroCuenta() != null ? movement.getNumeroCuenta() : "");
+                numeroCuentaCell.setCellStyle(dataStyle);
+                
+                Cell tipoCell = movementRow.createCell(colNum++);
+                tipoCell.setCellValue(movement.getTipo() != null ? movement.getTipo() : "");
+                tipoCell.setCellStyle(dataStyle);
+                
+                Cell saldoInicialCell = movementRow.createCell(colNum++);
+                if (movement.getSaldoInicial() != null) {
+                    saldoInicialCell.setCellValue(movement.getSaldoInicial().doubleValue());
+                }
+                saldoInicialCell.setCellStyle(numberStyle);
+                
+                Cell estadoCell = movementRow.createCell(colNum++);
+                if (movement.getEstado() != null) {
+                    estadoCell.setCellValue(movement.getEstado() ? "True" : "False");
+                }
+                estadoCell.setCellStyle(booleanStyle);
+                
+                Cell valorMovimientoCell = movementRow.createCell(colNum++);
+                if (movement.getValorMovimiento() != null) {
+                    valorMovimientoCell.setCellValue(movement.getValorMovimiento().doubleValue());
+                }
+                valorMovimientoCell.setCellStyle(numberStyle);
+                
+                Cell tipoMovimientoCell = movementRow.createCell(colNum++);
+                tipoMovimientoCell.setCellValue(movement.getTipoMovimiento() != null ? movement.getTipoMovimiento() : "");
+                tipoMovimientoCell.setCellStyle(dataStyle);
+                
+                Cell saldoDisponibleCell = movementRow.createCell(colNum++);
+                if (movement.getSaldoDisponible() != null) {
+                    saldoDisponibleCell.setCellValue(movement.getSaldoDisponible().doubleValue());
+                }
+                saldoDisponibleCell.setCellStyle(numberStyle);
+            }
+            
+            workbook.write(outputStream);
+        } catch (IOException e) {
+            log.error("Error generating Excel file: {}", e.getMessage(), e);
+            throw new UncheckedIOException("Error generating Excel file", e);
+        } finally {
+            workbook.dispose();
+        }
+    }
+    
+    // Escritura bloqueante del estado de cuenta completo; solo para hilos de trabajo (reportes asíncronos)
+    public void writeAccountStatement(Long clientId, LocalDateTime startDate, LocalDateTime endDate,
+                                      String format, OutputStream outputStream) throws IOException {
+        switch (format) {
+            case "excel" -> writeExcel(streamMovementReport(clientId, startDate, endDate), outputStream, () -> false);
+            case "csv" -> {
+                for (String line : streamAccountStatementCsv(clientId, startDate, endDate).toIterable()) {
+                    outputStream.write(line.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            case "ndjson" -> {
+                for (MovementReportDto movement : streamMovementReport(clientId, startDate, endDate).toIterable()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(movement));
+                    outputStream.write('\n');
+                }
+            }
+            case "json" -> {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                    generator.writeStartArray();
+                    for (MovementReportDto movement : streamMovementReport(clientId, startDate, endDate).toIterable()) {
+                        generator.writeObject(movement);
+                    }
+                    generator.writeEndArray();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported report format: " + format);
+        }
+    }
+    
+    // Una línea CSV por fila del estado de cuenta, emitida a medida que llega de la base de datos
+    public Flux<String> streamAccountStatementCsv(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
+        log.info("Generating CSV account statement for client ID: {} from {} to {}", clientId, startDate, endDate);
+        
+        return streamMovementReport(clientId, startDate, endDate)
+                .map(this::toCsvLine)
+                .switchOnFirst((first, lines) -> first.hasValue() ? lines.startWith(CSV_HEADER) : lines)
+                .doOnComplete(() -> log.info("CSV account statement generated successfully for client ID: {}", clientId));
+    }
+    
+    private String toCsvLine(MovementReportDto movement) {
+        return String.join(",",
+                csvValue(movement.getFecha()),
+                csvValue(movement.getCliente()),
+                csvValue(movement.getNumeroCuenta()),
+                csvValue(movement.getTipo()),
+                csvValue(movement.getSaldoInicial() != null ? movement.getSaldoInicial().toPlainString() : null),
+                csvValue(movement.getEstado()),
+                csvValue(movement.getValorMovimiento() != null ? movement.getValorMovimiento().toPlainString() : null),
+                csvValue(movement.getTipoMovimiento()),
+                csvValue(movement.getSaldoDisponible() != null ? movement.getSaldoDisponible().toPlainString() : null)) + "\n";
+    }
+    
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+    
+    // Los reportes completos (JSON) se arman desde StatementCache; los formatos en streaming leen directo de la base
     public Mono<List<MovementReportDto>> generateMovementReport(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
         log.info("Generating movement report for client ID: {} from {} to {}", clientId, startDate, endDate);
         
-        return customerClientService.getCustomerById(clientId)
-                .flatMap(customerInfo -> 
-                    accountRepository.findByCustomerId(clientId)
-                            .collectList()
-                            .flatMap(accounts -> {
-                                if (accounts.isEmpty()) {
-                                    return Mono.error(new RuntimeException("No accounts found for customer ID: " + clientId));
-                                }
-                                
-                                List<Mono<List<MovementReportDto>>> movementReports = accounts.stream()
-                                        .map(account -> 
-                                            movementRepository.findByAccountIdAndMovementDateBetween(account.getId(), startDate, endDate)
-                                                    .collectList()
-                                                    .map(movements -> {
-                                                        if (!movements.isEmpty()) {
-                                                            List<Movement> sortedMovements = movements.stream()
-                                                                    .sorted(Comparator.comparing(Movement::getMovementDate))
-                                                                    .collect(Collectors.toList());
-                                                            
-                                                            return sortedMovements.stream()
-                                                                    .map(movement -> {
-                                                                        String tipoMovimiento = "DEBIT".equalsIgnoreCase(movement.getMovementType()) 
-                                                                                ? "Débito" 
-                                                                                : "Crédito";
-                                                                        
-                                                                        BigDecimal saldoInicial;
-                                                                        if ("CREDIT".equalsIgnoreCase(movement.getMovementType())) {
-                                                                            saldoInicial = movement.getBalance().subtract(movement.getValue());
-                                                                        } else {
-                                                                            saldoInicial = movement.getBalance().add(movement.getValue());
-                                                                        }
-                                                                        
-                                                                        return MovementReportDto.builder()
-                                                                                .fecha(movement.getMovementDate())
-                                                                                .cliente(customerInfo.getName())
-                                                                                .numeroCuenta(account.getAccountNumber())
-                                                                                .tipo(account.getAccountType())
-                                                                                .saldoInicial(saldoInicial)
-                                                                                .estado(account.getStatus())
-                                                                                .valorMovimiento(movement.getValue())
-                                                                                .tipoMovimiento(tipoMovimiento)
-                                                                                .saldoDisponible(movement.getBalance())
-                                                                                .build();
-                                                                    })
-                                                                    .collect(Collectors.toList());
-                                                        } else {
-                                                            LocalDateTime fecha = account.getCreatedAt() != null ? account.getCreatedAt() : LocalDateTime.now();
-                                                            return List.of(MovementReportDto.builder()
-                                                                    .fecha(fecha)
-                                                                    .cliente(customerInfo.getName())
-                                                                    .numeroCuenta(account.getAccountNumber())
-                                                                    .tipo(account.getAccountType())
-                                                                    .saldoInicial(account.getInitialBalance() != null ? account.getInitialBalance() : account.getCurrentBalance())
-                                                                    .estado(account.getStatus())
-                                                                    .valorMovimiento(BigDecimal.ZERO)
-                                                                    .tipoMovimiento("Sin movimientos")
-                                                                    .saldoDisponible(account.getCurrentBalance())
-                                                                    .build());
-                                                        }
-                                                    })
-                                        )
-                                        .collect(Collectors.toList());
-                                
-                                return Flux.concat(movementReports)
-                                        .collectList()
-                                        .map(lists -> lists.stream()
-                                                .flatMap(List::stream)
-                                                .sorted(Comparator.comparing(MovementReportDto::getFecha).reversed())
-                                                .collect(Collectors.toList()));
-                            })
-                )
+        return statementCache.getStatement(clientId, startDate, endDate)
+                .map(statement -> statement.rows().stream()
+                        .map(row -> toReportRow(row, statement.customerName()))
+                        .toList())
                 .doOnSuccess(r -> log.info("Movement report generated successfully for client ID: {}", clientId))
                 .doOnError(error -> log.error("Error generating movement report: {}", error.getMessage()));
     }
+    
+    // Resumen por cuenta desde los totales diarios: unas 30 filas por cuenta y mes, sin recorrer los movimientos
+    public Mono<List<AccountSummaryDto>> generateStatementSummary(Long clientId, LocalDate startDate, LocalDate endDate) {
+        log.info("Generating statement summary for client ID: {} from {} to {}", clientId, startDate, endDate);
+        
+        if (endDate.isBefore(startDate)) {
+            return Mono.error(new IllegalArgumentException("End date must not be before start date"));
+        }
+        
+        return customerProjectionService.getCustomer(clientId)
+                .flatMap(customerInfo -> dailyRollupService.getSummary(clientId, startDate, endDate)
+                        .doOnNext(summary -> summary.setCliente(customerInfo.getName()))
+                        .collectList())
+                .filter(summaries -> !summaries.isEmpty())
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("No accounts found for customer ID: " + clientId)))
+                .doOnSuccess(r -> log.info("Statement summary generated successfully for client ID: {}", clientId))
+                .doOnError(error -> log.error("Error generating statement summary: {}", error.getMessage()));
+    }
+    
+    public Flux<MovementReportDto> streamMovementReport(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
+        log.info("Generating movement report for client ID: {} from {} to {}", clientId, startDate, endDate);
+        
+        return customerProjectionService.getCustomer(clientId)
+                .flatMapMany(customerInfo -> streamStatementRows(clientId, startDate, endDate)
+                        .map(row -> toReportRow(row, customerInfo.getName())))
+                .switchIfEmpty(Flux.error(() -> new RuntimeException("No accounts found for customer ID: " + clientId)))
+                .doOnError(error -> log.error("Error generating movement report: {}", error.getMessage()));
+    }
+    
+    // Con pocas cuentas se consulta cada una en paralelo (su orden sale del índice, sin ordenar en la base) y
+    // las filas se intercalan con un merge ordenado de k vías: memoria y costo por fila no crecen con el total.
+    // Con más de report.merge.max-accounts cuentas se usa la consulta unida, para no tomar una conexión por cuenta.
+    @SuppressWarnings("unchecked")
+    private Flux<StatementRow> streamStatementRows(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
+        return accountRepository.findByCustomerId(clientId)
+                .collectList()
+                .flatMapMany(accounts -> {
+                    if (accounts.size() > maxMergedAccounts) {
+                        return movementRepository.findStatementRows(clientId, startDate, endDate);
+                    }
+                    List<Flux<StatementRow>> perAccount = accounts.stream()
+                            .map(account -> movementRepository.findByAccountIdAndMovementDateBetween(account.getId(), startDate, endDate)
+                                    .map(movement -> StatementRow.of(account, movement))
+                                    .switchIfEmpty(Mono.fromSupplier(() -> StatementRow.of(account, null))))
+                            .toList();
+                    return Flux.mergeComparing(MERGE_PREFETCH, StatementRow.ORDER, perAccount.toArray(Flux[]::new));
+                });
+    }
+    
+    private MovementReportDto toReportRow(StatementRow row, String customerName) {
+        if (row.getMovementId() == null) {
+            LocalDateTime fecha = row.getAccountCreatedAt() != null ? row.getAccountCreatedAt() : LocalDateTime.now();
+            return MovementReportDto.builder()
+                    .fecha(fecha)
+                    .cliente(customerName)
+                    .numeroCuenta(row.getAccountNumber())
+                    .tipo(row.getAccountType())
+                    .saldoInicial(row.getInitialBalance() != null ? row.getInitialBalance() : row.getCurrentBalance())
+                    .estado(row.getStatus())
+                    .valorMovimiento(BigDecimal.ZERO)
+                    .tipoMovimiento("Sin movimientos")
+                    .saldoDisponible(row.getCurrentBalance())
+                    .build();
+        }
+        
+        boolean credit = "CREDIT".equalsIgnoreCase(row.getMovementType());
+        BigDecimal saldoInicial = credit
+                ? row.getBalance().subtract(row.getValue())
+                : row.getBalance().add(row.getValue());
+        
+        return MovementReportDto.builder()
+                .fecha(row.getMovementDate())
+                .cliente(customerName)
+                .numeroCuenta(row.getAccountNumber())
+                .tipo(row.getAccountType())
+                .saldoInicial(saldoInicial)
+                .estado(row.getStatus())
+                .valorMovimiento(row.getValue())
+                .tipoMovimiento(credit ? "Crédito" : "Débito")
+                .saldoDisponible(row.getBalance())
+                .build();
+    }
 }
 
@@ -0,0 +1,292 @@
+package org.example.accountservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountservice.dto.StatementRow;
+import org.example.accountservice.entity.Account;
+import org.example.accountservice.entity.Movement;
+import org.example.accountservice.repository.AccountRepository;
+import org.example.accountservice.repository.MovementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Caché de estados de cuenta por cliente. Guarda el nombre del cliente y los movimientos de todas sus
+ * cuentas en un rango [desde, hasta]; un rango que extiende el cacheado solo consulta los tramos nuevos.
+ * Las cuentas se leen siempre de la base de datos, porque el saldo actual y el estado cambian con cada
+ * movimiento. Los rangos cerrados (hasta en el pasado) no expiran; los abiertos expiran por TTL.
+ */
+@Slf4j
+@Component
+public class StatementCache {
+    
+    private static final Comparator<Movement> MOVEMENT_ORDER = Comparator
+            .comparing(Movement::getMovementDate, Comparator.reverseOrder())
+            .thenComparing(Movement::getId, Comparator.reverseOrder());
+    
+    // Cambios recientes que se recuerdan por cliente y por cuenta; al superarlos se olvidan los más antiguos
+    private static final int MAX_TRACKED_CHANGES = 100_000;
+    
+    private final AccountRepository accountRepository;
+    private final MovementRepository movementRepository;
+    private final CustomerProjectionService customerProjectionService;
+    private final long maxRowsPerClient;
+    private final Cache<Long, Snapshot> snapshots;
+    // Solo contiene las cuentas de los clientes con estado de cuenta cacheado
+    private final Map<Long, Long> clientByAccount = new ConcurrentHashMap<>();
+    // Cada cambio toma un número de secuencia; una consulta que empezó antes de un cambio de su cliente o de
+    // sus cuentas no se guarda. Al olvidar cambios antiguos, forgottenUpTo descarta toda consulta anterior a ellos
+    private final AtomicLong changeSequence = new AtomicLong();
+    private final AtomicLong forgottenUpTo = new AtomicLong();
+    private final Map<Long, Long> clientChanges = new ConcurrentHashMap<>();
+    private final Map<Long, Long> accountChanges = new ConcurrentHashMap<>();
+    
+    public StatementCache(AccountRepository accountRepository,
+                          MovementRepository movementRepository,
+                          CustomerProjectionService customerProjectionService,
+                          MeterRegistry meterRegistry,
+                          @Value("${report.cache.max-rows:2000000}") long maxRows,
+                          @Value("${report.cache.max-rows-per-client:100000}") long maxRowsPerClient,
+                          @Value("${report.cache.open-range-ttl:5m}") Duration openRangeTtl) {
+        this.accountRepository = accountRepository;
+        this.movementRepository = movementRepository;
+        this.customerProjectionService = customerProjectionService;
+        this.maxRowsPerClient = maxRowsPerClient;
+        long openRangeTtlNanos = openRangeTtl.toNanos();
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Long clientId, Snapshot snapshot) -> snapshot.movements().size() + 1)
+                .expireAfter(new Expiry<Long, Snapshot>() {
+                    @Override
+                    public long expireAfterCreate(Long clientId, Snapshot snapshot, long currentTime) {
+                        return snapshot.closed() ? Long.MAX_VALUE : openRangeTtlNanos;
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(Long clientId, Snapshot snapshot, long currentTime, long currentDuration) {
+                        return expireAfterCreate(clientId, snapshot, currentTime);
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(Long clientId, Snapshot snapshot, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((Long clientId, Snapshot snapshot, RemovalCause cause) -> {
+                    if (snapshot != null) {
+                        forgetAccounts(clientId, snapshot.accountIds());
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "report.statement");
+    }
+    
+    public Mono<Statement> getStatement(Long clientId, LocalDateTime startDate, LocalDateTime endDate) {
+        long startedAt = changeSequence.get();
+        return accountRepository.findByCustomerId(clientId)
+                .collectList()
+                .flatMap(accounts -> {
+                    if (accounts.isEmpty()) {
+                        return Mono.error(new RuntimeException("No accounts found for customer ID: " + clientId));
+                    }
+                    Set<Long> accountIds = accounts.stream().map(Account::getId).collect(Collectors.toSet());
+                    
+
+                    Snapshot cached = snapshots.getIfPresent(clientId);
+                    Mono<Snapshot> snapshot;
+                    if (cached != null && cached.accountIds().containsAll(accountIds) && cached.covers(startDate, endDate)) {
+                        log.debug("Statement cache hit for client ID: {}", clientId);
+                        snapshot = Mono.just(cached);
+                    } else if (cached != null && cached.accountIds().containsAll(accountIds) && cached.touches(startDate, endDate)) {
+                        snapshot = extend(clientId, startedAt, cached, startDate, endDate);
+                    } else {
+                        snapshot = load(clientId, startedAt, accountIds, startDate, endDate);
+                    }
+                    return snapshot.map(s -> new Statement(s.customerName(), buildRows(accounts, s, startDate, endDate)));
+                });
+    }
+    
+    // Invalida el estado de cuenta del cliente dueño de la cuenta si el movimiento cae en el rango cacheado
+    public void invalidateMovement(Long accountId, LocalDateTime movementDate) {
+        if (accountId == null) {
+            return;
+        }
+        // Se registra antes de buscar al cliente: una consulta en curso que aún no guardó su estado lo verá
+        markChanged(accountChanges, accountId);
+        Long clientId = clientByAccount.get(accountId);
+        if (clientId != null) {
+            snapshots.asMap().computeIfPresent(clientId, (id, snapshot) -> snapshot.contains(movementDate) ? null : snapshot);
+        }
+    }
+    
+    public void invalidateClient(Long clientId) {
+        markChanged(clientChanges, clientId);
+        snapshots.invalidate(clientId);
+    }
+    
+    private Mono<Snapshot> load(Long clientId, long startedAt, Set<Long> accountIds,
+                                LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime fetchedAt = LocalDateTime.now();
+        LocalDateTime coveredTo = coverageEnd(startDate, endDate, fetchedAt);
+        log.debug("Statement cache miss for client ID: {}, loading {} to {}", clientId, startDate, coveredTo);
+        return customerProjectionService.getCustomer(clientId)
+                .flatMap(customerInfo -> movementRepository.findClientMovements(clientId, startDate, coveredTo)
+                        .collectList()
+                        .map(movements -> {
+                            movements.sort(MOVEMENT_ORDER);
+                            Snapshot snapshot = new Snapshot(customerInfo.getName(), Set.copyOf(accountIds),
+                                    startDate, coveredTo, movements, coveredTo.isBefore(fetchedAt));
+                            store(clientId, startedAt, snapshot);
+                            return snapshot;
+                        }));
+    }
+    
+    // Solo se consultan los tramos que faltan a cada lado del rango cacheado
+    private Mono<Snapshot> extend(Long clientId, long startedAt, Snapshot cached,
+                                  LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime fetchedAt = LocalDateTime.now();
+        LocalDateTime coveredFrom = startDate.isBefore(cached.coveredFrom()) ? startDate : cached.coveredFrom();
+        LocalDateTime requestedTo = coverageEnd(startDate, endDate, fetchedAt);
+        LocalDateTime coveredTo = requestedTo.isAfter(cached.coveredTo()) ? requestedTo : cached.coveredTo();
+        log.debug("Statement cache extending client ID: {} from [{}, {}] to [{}, {}]",
+                clientId, cached.coveredFrom(), cached.coveredTo(), coveredFrom, coveredTo);
+        
+        Flux<Movement> before = coveredFrom.isBefore(cached.coveredFrom())
+                ? movementRepository.findClientMovements(clientId, coveredFrom, cached.coveredFrom())
+                : Flux.empty();
+        Flux<Movement> after = coveredTo.isAfter(cached.coveredTo())
+                ? movementRepository.findClientMovements(clientId, cached.coveredTo(), coveredTo)
+                : Flux.empty();
+        
+        return Flux.concat(before, after)
+                .collectList()
+                .map(delta -> {
+                    // Los bordes se consultan inclusive en ambos lados; se descartan los repetidos por id
+                    Map<Long, Movement> merged = new LinkedHashMap<>();
+                    cached.movements().forEach(movement -> merged.put(movement.getId(), movement));
+                    delta.forEach(movement -> merged.putIfAbsent(movement.getId(), movement));
+                    List<Movement> movements = new ArrayList<>(merged.values());
+                    movements.sort(MOVEMENT_ORDER);
+                    Snapshot snapshot = new Snapshot(cached.customerName(), cached.accountIds(),
+                            coveredFrom, coveredTo, movements, coveredTo.isBefore(fetchedAt));
+                    store(clientId, startedAt, snapshot);
+                    return snapshot;
+                });
+    }
+    
+    private void store(Long clientId, long startedAt, Snapshot snapshot) {
+        // El nombre por defecto indica que customer-service no respondió: no se cachea
+        if (CustomerClientService.UNAVAILABLE_CUSTOMER_NAME.equals(snapshot.customerName())
+                || snapshot.movements().size() > maxRowsPerClient) {
+            return;
+        }
+        snapshots.asMap().compute(clientId, (id, current) -> {
+            // Las cuentas se registran antes de revisar los cambios: un movimiento registrado después
+            // encuentra al cliente e invalida el estado guardado (ver invalidateMovement)
+            snapshot.accountIds().forEach(accountId -> clientByAccount.put(accountId, id));
+            if (!changedSince(id, snapshot.accountIds(), startedAt)) {
+                return snapshot;
+            }
+            snapshot.accountIds().stream()
+                    .filter(accountId -> current == null || !current.accountIds().contains(accountId))
+                    .forEach(accountId -> clientByAccount.remove(accountId, id));
+            return current;
+        });
+    }
+    
+    // Se ejecuta con el lock de la entrada del cliente, así que no compite con un store() del mismo cliente
+    private void forgetAccounts(Long clientId, Set<Long> accountIds) {
+        snapshots.asMap().computeIfAbsent(clientId, id -> {
+            accountIds.forEach(accountId -> clientByAccount.remove(accountId, id));
+            return null;
+        });
+    }
+    
+    private boolean changedSince(Long clientId, Set<Long> accountIds, long startedAt) {
+        return forgottenUpTo.get() > startedAt
+                || clientChanges.getOrDefault(clientId, 0L) > startedAt
+                || accountIds.stream().anyMatch(accountId -> accountChanges.getOrDefault(accountId, 0L) > startedAt);
+    }
+    
+    private void markChanged(Map<Long, Long> changes, Long id) {
+        changes.put(id, changeSequence.incrementAndGet());
+        if (clientChanges.size() + accountChanges.size() > MAX_TRACKED_CHANGES) {
+            // forgottenUpTo sube antes de borrar: quien ya no encuentre un cambio olvidado ve la marca
+            long cutoff = changeSequence.get() - MAX_TRACKED_CHANGES / 2;
+            forgottenUpTo.accumulateAndGet(cutoff, Math::max);
+            clientChanges.values().removeIf(sequence -> sequence <= cutoff);
+            accountChanges.values().removeIf(sequence -> sequence <= cutoff);
+        }
+    }
+    
+    // Hasta donde puede cubrir una consulta hecha ahora: los movimientos futuros todavía no existen
+    private static LocalDateTime coverageEnd(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime now) {
+        LocalDateTime end = endDate.isAfter(now) ? now : endDate;
+        return end.isBefore(startDate) ? startDate : end;
+    }
+    
+    private static List<StatementRow> buildRows(List<Account> accounts, Snapshot snapshot,
+                                                LocalDateTime startDate, LocalDateTime endDate) {
+        Map<Long, Account> accountsById = new HashMap<>();
+        accounts.forEach(account -> accountsById.put(account.getId(), account));
+        
+        List<StatementRow> rows = new ArrayList<>();
+        Set<Long> withMovements = new HashSet<>();
+        for (Movement movement : snapshot.movements()) {
+            Account account = accountsById.get(movement.getAccountId());
+            if (account == null || movement.getMovementDate().isBefore(startDate) || movement.getMovementDate().isAfter(endDate)) {
+                continue;
+            }
+            rows.add(StatementRow.of(account, movement));
+            withMovements.add(account.getId());
+        }
+        for (Account account : accounts) {
+            if (!withMovements.contains(account.getId())) {
+                rows.add(StatementRow.of(account, null));
+            }
+        }
+        rows.sort(StatementRow.ORDER);
+        return rows;
+    }
+    
+    public record Statement(String customerName, List<StatementRow> rows) {
+    }
+    
+    private record Snapshot(String customerName, Set<Long> accountIds, LocalDateTime coveredFrom,
+                            LocalDateTime coveredTo, List<Movement> movements, boolean closed) {
+        
+        private boolean covers(LocalDateTime startDate, LocalDateTime endDate) {
+            return !startDate.isBefore(coveredFrom) && !endDate.isAfter(coveredTo);
+        }
+        
+        private boolean touches(LocalDateTime startDate, LocalDateTime endDate) {
+            return !startDate.isAfter(coveredTo) && !endDate.isBefore(coveredFrom);
+        }
+        
+        private boolean contains(LocalDateTime movementDate) {
+            return movementDate == null || (!movementDate.isBefore(coveredFrom) && !movementDate.isAfter(coveredTo));
+        }
+    }
+}
@@ -12,19 +12,122 @@ CREATE TABLE IF NOT EXISTS accounts (
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Particionada por mes sobre movement_date: las consultas con rango de fechas solo leen las particiones del rango
 CREATE TABLE IF NOT EXISTS movements (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL,
     account_id BIGINT NOT NULL,
     movement_date TIMESTAMP NOT NULL,
     movement_type VARCHAR(20) NOT NULL CHECK (movement_type IN ('DEBIT', 'CREDIT')),
     value DECIMAL(19, 2) NOT NULL CHECK (value > 0),
     balance DECIMAL(19, 2) NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, movement_date),
     FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+) PARTITION BY RANGE (movement_date);
+
+-- Recibe los movimientos con fecha fuera de las particiones mensuales creadas (por ejemplo, muy a futuro)
+-- para que el INSERT no falle; create_movements_partition los traslada al crear su mes
+CREATE TABLE IF NOT EXISTS movements_default PARTITION OF movements DEFAULT;
+
+-- Crea (si no existe) la partición mensual movements_YYYY_MM que contiene la fecha indicada. Se crea como
+-- tabla independiente, se le trasladan las filas de ese mes que estén en movements_default y luego se
+-- adjunta: adjuntarla directamente fallaría si la partición por defecto ya tiene filas del rango
+CREATE OR REPLACE FUNCTION create_movements_partition(month DATE) RETURNS TEXT AS $$
+DECLARE
+    partition_start DATE := date_trunc('month', month)::date;
+    partition_end DATE := (partition_start + INTERVAL '1 month')::date;
+    partition_name TEXT := 'movements_' || to_char(partition_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I (LIKE movements INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format('WITH moved AS (DELETE FROM movements_default WHERE movement_date >= %L AND movement_date < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved', partition_start, partition_end, partition_name);
+        EXECUTE format('ALTER TABLE movements ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, partition_start, partition_end);
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Mes actual y los tres siguientes; la aplicación mantiene creadas las particiones futuras
+SELECT create_movements_partition((date_trunc('month', CURRENT_DATE) + n * INTERVAL '1 month')::date)
+FROM generate_series(0, 3) AS n;
+
+-- Claves de idempotencia de POST /api/v1/movements: una clave solo puede registrar un movimiento
+CREATE TABLE IF NOT EXISTS movement_idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    movement_id BIGINT NOT NULL,
+    movement_date TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Saldo de cada cuenta al cierre del día, para calcular el saldo a una fecha sin sumar toda la historia
+CREATE TABLE IF NOT EXISTS account_balance_checkpoints (
+    account_id BIGINT NOT NULL,
+    checkpoint_date DATE NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (account_id, checkpoint_date),
+    FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+);
+
+-- Proyección local de clientes (nombre y estado) alimentada por el tópico customer-events.
+-- event_timestamp descarta eventos que llegan fuera de orden; los eliminados quedan marcados con deleted
+CREATE TABLE IF NOT EXISTS customer_projections (
+    customer_id BIGINT PRIMARY KEY,
+    name VARCHAR(255),
+    status BOOLEAN,
+    deleted BOOLEAN NOT NULL DEFAULT false,
+    event_timestamp BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Estado de las cargas de customer_projections: la fila 'bootstrap' indica que la carga inicial terminó
+CREATE TABLE IF NOT EXISTS customer_projection_state (
+    name VARCHAR(50) PRIMARY KEY,
+    completed_at TIMESTAMP NOT NULL
+);
+
+-- Eventos de customer-events que no se pudieron aplicar tras los reintentos; su offset ya está confirmado
+CREATE TABLE IF NOT EXISTS customer_event_dead_letters (
+    topic VARCHAR(255) NOT NULL,
+    partition_number INTEGER NOT NULL,
+    record_offset BIGINT NOT NULL,
+    customer_id BIGINT,
+    event_type VARCHAR(20),
+    name VARCHAR(255),
+    status BOOLEAN,
+    event_timestamp BIGINT,
+    error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (topic, partition_number, record_offset)
+);
+
+-- Totales diarios por cuenta, mantenidos en la misma sentencia que registra cada movimiento
+CREATE TABLE IF NOT EXISTS account_daily_rollups (
+    account_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    total_credits DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    total_debits DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    movement_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (account_id, rollup_date),
+    FOREIGN KEY (account_id) REFERENCES accounts(id) ON DELETE CASCADE
+);
+
+-- Carga inicial desde los movimientos existentes (sin efecto si ya hay totales para ese día)
+INSERT INTO account_daily_rollups (account_id, rollup_date, total_credits, total_debits, movement_count)
+SELECT account_id, CAST(movement_date AS DATE),
+       COALESCE(SUM(value) FILTER (WHERE movement_type = 'CREDIT'), 0),
+       COALESCE(SUM(value) FILTER (WHERE movement_type <> 'CREDIT'), 0),
+       COUNT(*)
+FROM movements
+GROUP BY account_id, CAST(movement_date AS DATE)
+ON CONFLICT (account_id, rollup_date) DO NOTHING;
+
 CREATE INDEX IF NOT EXISTS idx_accounts_customer_id ON accounts(customer_id);
 CREATE INDEX IF NOT EXISTS idx_accounts_account_number ON accounts(account_number);
-CREATE INDEX IF NOT EXISTS idx_movements_account_id ON movements(account_id);
-CREATE INDEX IF NOT EXISTS idx_movements_date ON movements(movement_date);
+CREATE INDEX IF NOT EXISTS idx_movement_idempotency_keys_created_at ON movement_idempotency_keys(created_at);
+-- Los índices de la tabla particionada se crean también en cada partición
+CREATE INDEX IF NOT EXISTS idx_movements_account_date ON movements(account_id, movement_date, id);
+CREATE INDEX IF NOT EXISTS idx_movements_date ON movements(movement_date, id);
 
@@ -0,0 +1,141 @@
+package org.example.accountservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.accountservice.dto.MovementReportDto;
+import org.example.accountservice.service.ReportJobService;
+import org.example.accountservice.service.ReportRenderExecutor;
+import org.example.accountservice.service.ReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+class ReportControllerTest {
+    
+    private static final String EXCEL_MEDIA_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String STATEMENT_URI = "/reports/1?startDate=2025-01-01T00:00:00&endDate=2025-01-31T23:59:59";
+    
+    private ReportRenderExecutor renderExecutor;
+    private WebTestClient webTestClient;
+    
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        renderExecutor = new ReportRenderExecutor(new SimpleMeterRegistry(), 1, 1);
+        // Servicio real para armar Excel y CSV; solo se reemplaza la lectura de movimientos
+        ReportService reportService = spy(new ReportService(null, null, null, null, null, objectMapper, renderExecutor, 2));
+        doReturn(Flux.just(
+                        row(LocalDateTime.of(2025, 1, 10, 9, 30), "CREDITO", "600.00", "2600.00"),
+                        row(LocalDateTime.of(2025, 1, 5, 12, 0), "DEBITO", "575.00", "2000.00")))
+                .when(reportService).streamMovementReport(eq(1L), any(), any());
+        ReportController controller = new ReportController(reportService, mock(ReportJobService.class), objectMapper);
+        webTestClient = WebTestClient.bindToController(controller).build();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        renderExecutor.shutdown();
+    }
+    
+    @Test
+    void testGenerateAccountStatement_ExcelDownloadOpensWithPoi() throws Exception {
+        // When
+        byte[] file = webTestClient.get()
+                .uri(STATEMENT_URI + "&format=excel")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(EXCEL_MEDIA_TYPE)
+                .expectHeader().value(HttpHeaders.CONTENT_DISPOSITION,
+                        value -> assertTrue(value.matches("attachment; filename=\"estado_cuenta_cliente_1_\\d{8}_\\d{6}\\.xlsx\""), value))
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        
+        // Then
+        assertNotNull(file);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(file))) {
+            Sheet sheet = workbook.getSheet("Estado de Cuenta");
+            assertEquals(2, sheet.getLastRowNum());
+            assertEquals("Fecha", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Marianela Montalvo", sheet.getRow(1).getCell(1).getStringCellValue());
+            assertEquals(600.0, sheet.getRow(1).getCell(6).getNumericCellValue());
+            assertEquals("DEBITO", sheet.getRow(2).getCell(7).getStringCellValue());
+        }
+    }
+    
+    @Test
+    void testGenerateAccountStatement_CsvFromAcceptHeader() {
+        // When
+        String csv = webTestClient.get()
+                .uri(STATEMENT_URI)
+                .accept(new MediaType("text", "csv"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .expectHeader().value(HttpHeaders.CONTENT_DISPOSITION, value -> assertTrue(value.endsWith(".csv\""), value))
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        
+        // Then
+        assertNotNull(csv);
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("fecha,cliente,numero_cuenta,tipo,saldo_inicial,estado,valor_movimiento,tipo_movimiento,saldo_disponible", lines[0]);
+        assertTrue(lines[1].endsWith(",Marianela Montalvo,225487,CORRIENTE,100.00,true,600.00,CREDITO,2600.00"), lines[1]);
+        assertTrue(lines[2].endsWith(",Marianela Montalvo,225487,CORRIENTE,100.00,true,575.00,DEBITO,2000.00"), lines[2]);
+    }
+    
+    @Test
+    void testGenerateAccountStatement_NdjsonOneObjectPerLine() {
+        // When
+        String ndjson = webTestClient.get()
+                .uri(STATEMENT_URI + "&format=ndjson")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        
+        // Then
+        assertNotNull(ndjson);
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"tipo_movimiento\":\"CREDITO\""), lines[0]);
+    }
+    
+    private MovementReportDto row(LocalDateTime date, String type, String value, String balance) {
+        return MovementReportDto.builder()
+                .fecha(date)
+                .cliente("Marianela Montalvo")
+                .numeroCuenta("225487")
+                .tipo("CORRIENTE")
+                .saldoInicial(new BigDecimal("100.00"))
+                .estado(true)
+                .valorMovimiento(new BigDecimal(value))
+                .tipoMovimiento(type)
+                .saldoDisponible(new BigDecimal(balance))
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.accountservice.entity.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountCacheTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private AccountCache accountCache;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        accountCache = new AccountCache(meterRegistry, 64, Duration.ofMinutes(5), 1);
+    }
+    
+    @Test
+    void testPutAndGet_RoundTripsAllFields() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123_456_000);
+        Account account = account(1L, "1000.50");
+        account.setCreatedAt(createdAt);
+        
+        // When
+        accountCache.put(account);
+        Account cached = accountCache.get(1L);
+        
+        // Then
+        assertNotNull(cached);
+        assertEquals(account, cached);
+        assertEquals(1.0, meterRegistry.get("account.cache.requests").tag("result", "hit").counter().count());
+    }
+    
+    @Test
+    void testGet_Miss() {
+        assertNull(accountCache.get(99L));
+        assertEquals(1.0, meterRegistry.get("account.cache.requests").tag("result", "miss").counter().count());
+    }
+    
+    @Test
+    void testUpdateBalance_IgnoresOlderChanges() {
+        // Given
+        Account account = account(1L, "1000.00");
+        accountCache.put(account);
+        
+        // When
+        accountCache.updateBalance(1L, new BigDecimal("900.00"), account.getUpdatedAt().plusSeconds(1));
+        accountCache.updateBalance(1L, new BigDecimal("500.00"), account.getUpdatedAt().minusSeconds(1));
+        
+        // Then
+        assertEquals(new BigDecimal("900.00"), accountCache.get(1L).getCurrentBalance());
+    }
+    
+    @Test
+    void testInvalidate_KeepsCollidingKeysReachable() {
+        // Given
+        for (long id = 1; id <= 40; id++) {
+            accountCache.put(account(id, "10.00"));
+        }
+        
+        // When
+        for (long id = 1; id <= 40; id += 2) {
+            accountCache.invalidate(id);
+        }
+        
+        // Then
+        for (long id = 1; id <= 40; id++) {
+            if (id % 2 == 1) {
+                assertNull(accountCache.get(id));
+            } else {
+                assertEquals(id, accountCache.get(id).getId());
+            }
+        }
+        assertEquals(20, accountCache.size());
+    }
+    
+    @Test
+    void testPut_EvictsWhenFull() {
+        // When
+        for (long id = 1; id <= 200; id++) {
+            accountCache.put(account(id, "10.00"));
+        }
+        
+        // Then
+        assertEquals(64, accountCache.size());
+        assertNotNull(accountCache.get(200L));
+        assertTrue(meterRegistry.get("account.cache.evictions").counter().count() > 0);
+    }
+    
+    @Test
+    void testGet_ExpiredEntryIsRemoved() {
+        // Given
+        accountCache = new AccountCache(meterRegistry, 64, Duration.ZERO, 1);
+        accountCache.put(account(1L, "10.00"));
+        
+        // When & Then
+        assertNull(accountCache.get(1L));
+        assertEquals(0, accountCache.size());
+    }
+    
+    private Account account(Long id, String balance) {
+        return Account.builder()
+                .id(id)
+                .accountNumber("ACC-" + id)
+                .accountType("SAVINGS")
+                .initialBalance(new BigDecimal("1000.00"))
+                .currentBalance(new BigDecimal(balance))
+                .status(true)
+                .customerId(1L)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .updatedAt(LocalDateTime.of(2025, 1, 2, 0, 0))
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.accountservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.accountservice.dto.AccountDto;
 import org.example.accountservice.entity.Account;
 import org.example.accountservice.mapper.AccountMapper;
@@ -9,11 +10,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -28,6 +31,9 @@ class AccountServiceTest {
     @Mock
     private AccountMapper accountMapper;
     
+    @Spy
+    private AccountCache accountCache = new AccountCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), 2);
+    
     @InjectMocks
     private AccountService accountService;
     
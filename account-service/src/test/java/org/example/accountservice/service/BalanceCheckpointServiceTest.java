@@ -0,0 +1,224 @@
+package org.example.accountservice.service;
+
+import io.r2dbc.spi.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BalanceCheckpointServiceTest {
+    
+    private static final LocalDate LAST_DAY = LocalDate.of(2024, 3, 10);
+    
+    // Días para los que se ejecutó el INSERT de cierres, en orden
+    private final List<LocalDate> checkpointedDays = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> balanceBinds = new ConcurrentHashMap<>();
+    // Binds del DELETE y del INSERT que rehace los cierres de una cuenta
+    private final List<Map<String, Object>> deletes = new CopyOnWriteArrayList<>();
+    private final List<Map<String, Object>> rebuilds = new CopyOnWriteArrayList<>();
+    private LocalDate lastCheckpoint;
+    private LocalDate firstDay;
+    private BigDecimal balance;
+    private LocalDate checkpointDate;
+    private boolean accountExists;
+    private BalanceCheckpointService balanceCheckpointService;
+    
+    @BeforeEach
+    void setUp() {
+        accountExists = true;
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        balanceCheckpointService = new BalanceCheckpointService(databaseClient);
+    }
+    
+    @Test
+    void testCheckpointDaysThrough_CatchesUpFromDayAfterLastCheckpoint() {
+        // Given: el último cierre es del 7, el job no corrió el 8 ni el 9
+        firstDay = LocalDate.of(2024, 3, 8);
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.checkpointDaysThrough(LAST_DAY))
+                .expectNextCount(3)
+                .verifyComplete();
+        assertEquals(List.of(LocalDate.of(2024, 3, 8), LocalDate.of(2024, 3, 9), LAST_DAY), checkpointedDays);
+    }
+    
+    @Test
+    void testCheckpointDaysThrough_NothingToDoWithoutCheckpointsOrMovements() {
+        // Given: ambas subconsultas devuelven NULL
+        firstDay = null;
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.checkpointDaysThrough(LAST_DAY))
+                .verifyComplete();
+        assertEquals(List.of(), checkpointedDays);
+    }
+    
+    @Test
+    void testCheckpointDaysThrough_AlreadyUpToDate() {
+        // Given: ya existe el cierre de LAST_DAY
+        firstDay = LAST_DAY.plusDays(1);
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.checkpointDaysThrough(LAST_DAY))
+                .verifyComplete();
+        assertEquals(List.of(), checkpointedDays);
+    }
+    
+    @Test
+    void testInvalidateFrom_BackDatedChangeRebuildsAccountCheckpointsBeforeTheJobRuns() {
+        // Given: el job ya cerró hasta LAST_DAY y se modifica un movimiento del día 5 de la cuenta 1
+        lastCheckpoint = LAST_DAY;
+        
+        // When: se invalidan los cierres y luego corre el job, que no tiene días pendientes
+        StepVerifier.create(balanceCheckpointService.invalidateFrom(1L, LocalDateTime.of(2024, 3, 5, 10, 0)))
+                .verifyComplete();
+        firstDay = LAST_DAY.plusDays(1);
+        StepVerifier.create(balanceCheckpointService.checkpointDaysThrough(LAST_DAY))
+                .verifyComplete();
+        
+        // Then: los cierres de la cuenta del 5 al 10 se borraron y se volvieron a insertar
+        assertEquals(List.of(Map.of("accountId", 1L, "day", LocalDate.of(2024, 3, 5))), deletes);
+        assertEquals(List.of(Map.of("accountId", 1L, "fromDay", LocalDate.of(2024, 3, 5),
+                "dayAfterLast", LAST_DAY.plusDays(1))), rebuilds);
+        assertEquals(List.of(), checkpointedDays);
+    }
+    
+    @Test
+    void testInvalidateFrom_AfterLastCheckpointOnlyDeletes() {
+        // Given: el movimiento es posterior al último cierre, el job creará esos días cuando llegue a ellos
+        lastCheckpoint = LocalDate.of(2024, 3, 4);
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.invalidateFrom(1L, LocalDateTime.of(2024, 3, 5, 10, 0)))
+                .verifyComplete();
+        assertEquals(1, deletes.size());
+        assertEquals(List.of(), rebuilds);
+    }
+    
+    @Test
+    void testGetBalanceAsOf_UsesCheckpointPlusLaterMovements() {
+        // Given
+        LocalDateTime asOf = LocalDateTime.of(2024, 3, 9, 18, 30);
+        balance = new BigDecimal("1425.00");
+        checkpointDate = LocalDate.of(2024, 3, 7);
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.getBalanceAsOf(1L, asOf))
+                .assertNext(dto -> {
+                    assertEquals(1L, dto.getAccountId());
+                    assertEquals(asOf, dto.getAsOf());
+                    assertEquals(new BigDecimal("1425.00"), dto.getBalance());
+                    assertEquals(checkpointDate, dto.getCheckpointDate());
+                })
+                .verifyComplete();
+        assertEquals(asOf, balanceBinds.get("asOf"));
+        assertEquals(1L, balanceBinds.get("accountId"));
+    }
+    
+    @Test
+    void testGetBalanceAsOf_BeforeFirstCheckpointStartsFromInitialBalance() {
+        // Given: no hay cierre anterior a la fecha, el saldo parte del saldo inicial de la cuenta
+        balance = new BigDecimal("2000.00");
+        checkpointDate = null;
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.getBalanceAsOf(1L, LocalDateTime.of(2024, 1, 2, 0, 0)))
+                .assertNext(dto -> {
+                    assertEquals(new BigDecimal("2000.00"), dto.getBalance());
+                    assertNull(dto.getCheckpointDate());
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    void testGetBalanceAsOf_AccountNotFound() {
+        // Given
+        accountExists = false;
+        
+        // When & Then
+        StepVerifier.create(balanceCheckpointService.getBalanceAsOf(99L, LocalDateTime.of(2024, 3, 9, 0, 0)))
+                .expectErrorMessage("Account not found with ID: 99")
+                .verify();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement(String sql) {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        Map<String, Object> binds = new ConcurrentHashMap<>();
+        when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+            binds.put(invocation.getArgument(0), invocation.getArgument(1));
+            return spec;
+        });
+        if (sql.contains("AS last_day")) {
+            RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                Function<Row, Object> mapper = invocation.getArgument(0);
+                Row row = mock(Row.class);
+                when(row.get("last_day", LocalDate.class)).thenReturn(lastCheckpoint);
+                Object mapped = mapper.apply(row);
+                when(fetch.one()).thenReturn(Mono.just(mapped));
+                return fetch;
+            });
+        } else if (sql.startsWith("DELETE")) {
+            when(spec.then()).thenReturn(Mono.fromRunnable(() -> deletes.add(Map.copyOf(binds))));
+        } else if (sql.contains("rebuilt")) {
+            FetchSpec<Map<String, Object>> fetch = mock(FetchSpec.class);
+            when(fetch.rowsUpdated()).thenReturn(Mono.fromCallable(() -> {
+                rebuilds.add(Map.copyOf(binds));
+                return 6L;
+            }));
+            when(spec.fetch()).thenReturn(fetch);
+        } else if (sql.contains("AS first_day")) {
+            RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                Function<Row, Object> mapper = invocation.getArgument(0);
+                Row row = mock(Row.class);
+                when(row.get("first_day", LocalDate.class)).thenReturn(firstDay);
+                Object mapped = mapper.apply(row);
+                when(fetch.one()).thenReturn(Mono.just(mapped));
+                return fetch;
+            });
+        } else if (sql.contains("AS balance")) {
+            RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                balanceBinds.putAll(binds);
+                Function<Row, Object> mapper = invocation.getArgument(0);
+                Row row = mock(Row.class);
+                when(row.get("balance", BigDecimal.class)).thenReturn(balance);
+                when(row.get("checkpoint_date", LocalDate.class)).thenReturn(checkpointDate);
+                Mono<Object> result = accountExists ? Mono.just(mapper.apply(row)) : Mono.empty();
+                when(fetch.one()).thenReturn(result);
+                return fetch;
+            });
+        } else {
+            FetchSpec<Map<String, Object>> fetch = mock(FetchSpec.class);
+            when(fetch.rowsUpdated()).thenAnswer(invocation -> {
+                checkpointedDays.add((LocalDate) binds.get("day"));
+                return Mono.just(1L);
+            });
+            when(spec.fetch()).thenReturn(fetch);
+        }
+        return spec;
+    }
+}
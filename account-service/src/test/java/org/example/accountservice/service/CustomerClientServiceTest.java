@@ -0,0 +1,183 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.accountservice.dto.CustomerInfoDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomerClientServiceTest {
+    
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private HttpStatus responseStatus;
+    private RuntimeException transportError;
+    private CustomerServiceCircuitBreaker circuitBreaker;
+    private CustomerClientService customerClientService;
+    
+    @BeforeEach
+    void setUp() {
+        responseStatus = HttpStatus.OK;
+        transportError = null;
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.incrementAndGet();
+                    queries.add(String.valueOf(request.url().getQuery()));
+                    if (transportError != null) {
+                        return Mono.error(transportError);
+                    }
+                    return Mono.delay(Duration.ofMillis(50))
+                            .map(tick -> ClientResponse.create(responseStatus)
+                                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                    .body(responseStatus.isError() ? "{}" : body(request.url().getQuery()))
+                                    .build());
+                })
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CustomerServiceCircuitBreaker(meterRegistry, 4, 2, 50, Duration.ofMinutes(1), 1);
+        customerClientService = new CustomerClientService(webClient, meterRegistry, circuitBreaker, Duration.ofSeconds(1),
+                100, Duration.ofMinutes(1), 10, Duration.ofMillis(20));
+    }
+    
+    // Consulta individual: Jose Lema; en lote: los ids 1 y 2 existen, el resto no
+    private static String body(String query) {
+        if (query == null) {
+            return "{\"id\":1,\"name\":\"Jose Lema\"}";
+        }
+        return "[{\"id\":1,\"name\":\"Jose Lema\"},{\"id\":2,\"name\":\"Marianela Montalvo\"}]";
+    }
+    
+    @Test
+    void testGetCustomerById_ConcurrentLookupsShareOneRequest() {
+        // When
+        Mono<String> first = customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName);
+        Mono<String> second = customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName);
+        
+        // Then
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(names -> {
+                    assertEquals("Jose Lema", names.getT1());
+                    assertEquals("Jose Lema", names.getT2());
+                })
+                .verifyComplete();
+        assertEquals(1, requests.get());
+    }
+    
+    @Test
+    void testGetCustomerById_SuccessIsMemoized() {
+        customerClientService.getCustomerById(1L).block();
+        
+        StepVerifier.create(customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName))
+                .expectNext("Jose Lema")
+                .verifyComplete();
+        assertEquals(1, requests.get());
+    }
+    
+    @Test
+    void testGetCustomerById_FallbackIsNotMemoized() {
+        // Given
+        responseStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        StepVerifier.create(customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName))
+                .expectNext(CustomerClientService.UNAVAILABLE_CUSTOMER_NAME)
+                .verifyComplete();
+        
+        // When
+        responseStatus = HttpStatus.OK;
+        
+        // Then
+        StepVerifier.create(customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName))
+                .expectNext("Jose Lema")
+                .verifyComplete();
+        assertEquals(2, requests.get());
+    }
+    
+    @Test
+    void testGetCustomerById_LookupsWithinWindowShareOneBatchRequest() {
+        // When
+        Mono<String> first = customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName);
+        Mono<String> second = customerClientService.getCustomerById(2L).map(CustomerInfoDto::getName);
+        
+        // Then
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(names -> {
+                    assertEquals("Jose Lema", names.getT1());
+                    assertEquals("Marianela Montalvo", names.getT2());
+                })
+                .verifyComplete();
+        assertEquals(1, requests.get());
+        assertEquals(List.of("ids=1,2"), queries);
+    }
+    
+    @Test
+    void testGetCustomerById_MissingCustomerInBatchFallsBackAlone() {
+        // When
+        Mono<String> existing = customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName);
+        Mono<String> missing = customerClientService.getCustomerById(3L).map(CustomerInfoDto::getName);
+        
+        // Then
+        StepVerifier.create(Mono.zip(existing, missing))
+                .assertNext(names -> {
+                    assertEquals("Jose Lema", names.getT1());
+                    assertEquals(CustomerClientService.UNAVAILABLE_CUSTOMER_NAME, names.getT2());
+                })
+                .verifyComplete();
+        assertEquals(1, requests.get());
+    }
+    
+    @Test
+    void testGetCustomerById_OpenCircuitSkipsCustomerService() {
+        // Given
+        responseStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        customerClientService.getCustomerById(1L).block();
+        customerClientService.getCustomerById(2L).block();
+        assertEquals(CustomerServiceCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        
+        // When
+        responseStatus = HttpStatus.OK;
+        
+        // Then
+        StepVerifier.create(customerClientService.getCustomerById(1L).map(CustomerInfoDto::getName))
+                .expectNext(CustomerClientService.UNAVAILABLE_CUSTOMER_NAME)
+                .verifyComplete();
+        assertEquals(2, requests.get());
+    }
+    
+    @Test
+    void testGetCustomerById_NotFoundDoesNotOpenCircuit() {
+        // Given
+        responseStatus = HttpStatus.NOT_FOUND;
+        
+        // When
+        customerClientService.getCustomerById(1L).block();
+        customerClientService.getCustomerById(2L).block();
+        
+        // Then
+        assertEquals(CustomerServiceCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+    
+    @Test
+    void testGetCustomerById_FailureMentioningNotFoundStillCounts() {
+        // Given: un error de red cuyo mensaje contiene "not found" no es un cliente inexistente
+        transportError = new IllegalStateException("customer-service: host not found");
+        
+        // When
+        customerClientService.getCustomerById(1L).block();
+        customerClientService.getCustomerById(2L).block();
+        
+        // Then
+        assertEquals(CustomerServiceCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.accountservice.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.example.accountservice.config.KafkaConfig;
+import org.example.accountservice.dto.CustomerEventDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerEventConsumerTest {
+    
+    @Mock
+    private CustomerProjectionService customerProjectionService;
+    
+    @Mock
+    private StatementCache statementCache;
+    
+    @Mock
+    private ReceiverOffset receiverOffset;
+    
+    @Mock
+    private DatabaseClient databaseClient;
+    
+    // Binds de cada dead letter guardado; los bindNull se registran con valor null
+    private final List<Map<String, Object>> deadLetters = new CopyOnWriteArrayList<>();
+    private final AtomicInteger deadLetterFailures = new AtomicInteger();
+    private CustomerEventConsumer consumer;
+    
+    @BeforeEach
+    void setUp() {
+        consumer = new CustomerEventConsumer(null, databaseClient, statementCache, customerProjectionService, 1, 2, Duration.ofMillis(1));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        consumer.shutdown();
+    }
+    
+    @Test
+    void testDeserializer_ReadsEventPublishedByCustomerService() {
+        // Given: el registro tal como lo publica el JsonSerializer de customer-service
+        Map<String, Object> props = new HashMap<>(KafkaConfig.consumerProperties("localhost:9092", "account-service-group"));
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("__TypeId__", "org.example.customerservice.dto.CustomerEventDto".getBytes(StandardCharsets.UTF_8));
+        byte[] payload = """
+                {"event_type":"UPDATED","customer_id":7,"person_id":3,"name":"Jose Lema","status":true,"timestamp":1700000000000}
+                """.getBytes(StandardCharsets.UTF_8);
+        
+        // When
+        CustomerEventDto event;
+        try (Deserializer<Object> deserializer = new ErrorHandlingDeserializer<>()) {
+            deserializer.configure(props, false);
+            event = (CustomerEventDto) deserializer.deserialize("customer-events", headers, payload);
+        }
+        
+        // Then
+        assertEquals("UPDATED", event.getEventType());
+        assertEquals(7L, event.getCustomerId());
+        assertEquals("Jose Lema", event.getName());
+        assertEquals(true, event.getStatus());
+        assertEquals(1700000000000L, event.getTimestamp());
+    }
+    
+    @Test
+    void testHandle_AppliesEventToProjectionBeforeAcknowledging() {
+        // Given
+        CustomerEventDto event = CustomerEventDto.builder()
+                .eventType("UPDATED")
+                .customerId(7L)
+                .name("Jose Lema")
+                .timestamp(1L)
+                .build();
+        when(customerProjectionService.apply(event)).thenReturn(Mono.empty());
+        
+        // When
+        StepVerifier.create(consumer.handle(record(event)))
+                .verifyComplete();
+        
+        // Then
+        var order = inOrder(customerProjectionService, statementCache, receiverOffset);
+        order.verify(customerProjectionService).apply(event);
+        order.verify(statementCache).invalidateClient(7L);
+        order.verify(receiverOffset).acknowledge();
+    }
+    
+    @Test
+    void testHandle_TransientFailureIsRetriedBeforeAcknowledging() {
+        // Given
+        CustomerEventDto event = CustomerEventDto.builder().eventType("CREATED").customerId(7L).build();
+        AtomicInteger attempts = new AtomicInteger();
+        when(customerProjectionService.apply(event)).thenReturn(Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.error(new DataAccessResourceFailureException("pool exhausted"))
+                : Mono.empty()));
+        
+        // When
+        StepVerifier.create(consumer.handle(record(event)))
+                .verifyComplete();
+        
+        // Then
+        assertEquals(2, attempts.get());
+        verify(receiverOffset).acknowledge();
+    }
+    
+    @Test
+    void testHandle_PersistentFailureIsDeadLetteredAndAcknowledged() {
+        // Given
+        CustomerEventDto event = CustomerEventDto.builder().eventType("UPDATED").customerId(7L).name("Jose Lema").build();
+        when(customerProjectionService.apply(event)).thenReturn(Mono.error(new DataAccessResourceFailureException("constraint violated")));
+        stubDeadLetters();
+        
+        // When: handle completa, el error no llega al pipeline de receive()
+        StepVerifier.create(consumer.handle(record(event)))
+                .verifyComplete();
+        
+        // Then
+        assertEquals(1, deadLetters.size());
+        Map<String, Object> deadLetter = deadLetters.get(0);
+        assertEquals("customer-events", deadLetter.get("topic"));
+        assertEquals(0, deadLetter.get("partition"));
+        assertEquals(10L, deadLetter.get("offset"));
+        assertEquals(7L, deadLetter.get("customerId"));
+        assertEquals("Jose Lema", deadLetter.get("name"));
+        assertNull(deadLetter.get("status"));
+        assertEquals("constraint violated", deadLetter.get("error"));
+        var order = inOrder(databaseClient, receiverOffset);
+        order.verify(databaseClient).sql(anyString());
+        order.verify(receiverOffset).acknowledge();
+        verifyNoInteractions(statementCache);
+    }
+    
+    @Test
+    void testHandle_OffsetIsNotAcknowledgedUntilDeadLetterIsStored() {
+        // Given: la primera escritura del dead letter también falla
+        CustomerEventDto event = CustomerEventDto.builder().eventType("UPDATED").customerId(7L).build();
+        when(customerProjectionService.apply(event)).thenReturn(Mono.error(new DataAccessResourceFailureException("database down")));
+        stubDeadLetters();
+        deadLetterFailures.set(1);
+        
+        // When
+        StepVerifier.create(consumer.handle(record(event)))
+                .verifyComplete();
+        
+        // Then
+        assertEquals(0, deadLetterFailures.get());
+        assertEquals(1, deadLetters.size());
+        verify(receiverOffset).acknowledge();
+    }
+    
+    @Test
+    void testHandle_UnreadableRecordIsAcknowledged() {
+        when(receiverOffset.topicPartition()).thenReturn(new TopicPartition("customer-events", 0));
+        
+        StepVerifier.create(consumer.handle(record(null)))
+                .verifyComplete();
+        
+        verify(receiverOffset).acknowledge();
+    }
+    
+    private void stubDeadLetters() {
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> {
+            DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+            Map<String, Object> binds = new HashMap<>();
+            when(spec.bind(anyString(), any())).thenAnswer(bind -> {
+                binds.put(bind.getArgument(0), bind.getArgument(1));
+                return spec;
+            });
+            when(spec.bindNull(anyString(), any())).thenAnswer(bind -> {
+                binds.put(bind.getArgument(0), null);
+                return spec;
+            });
+            when(spec.then()).thenReturn(Mono.defer(() -> {
+                if (deadLetterFailures.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0) {
+                    return Mono.error(new DataAccessResourceFailureException("database down"));
+                }
+                deadLetters.add(binds);
+                return Mono.empty();
+            }));
+            return spec;
+        });
+    }
+    
+    private ReceiverRecord<String, CustomerEventDto> record(CustomerEventDto event) {
+        ConsumerRecord<String, CustomerEventDto> consumerRecord = new ConsumerRecord<>("customer-events", 0, 10L,
+                event != null ? String.valueOf(event.getCustomerId()) : null, event);
+        return new ReceiverRecord<>(consumerRecord, receiverOffset);
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.accountservice.service;
+
+import io.r2dbc.spi.Row;
+import org.example.accountservice.dto.CustomerEventDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerProjectionServiceTest {
+    
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    // Binds de cada sentencia ejecutada, en orden; los bindNull se registran con valor null
+    private final List<Map.Entry<String, Map<String, Object>>> executed = new CopyOnWriteArrayList<>();
+    private final AtomicInteger customerServiceCalls = new AtomicInteger();
+    private boolean bootstrapCompleted;
+    private HttpStatus customerServiceStatus;
+    private CustomerProjectionService customerProjectionService;
+    
+    @BeforeEach
+    void setUp() {
+        customerServiceStatus = HttpStatus.OK;
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    customerServiceCalls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(customerServiceStatus)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                            .body("{\"id\":1,\"name\":\"Jose Lema\",\"status\":true}\n{\"id\":2,\"name\":\"Marianela Montalvo\",\"status\":true}\n")
+                            .build());
+                })
+                .build();
+        customerProjectionService = new CustomerProjectionService(databaseClient, mock(CustomerClientService.class), webClient, true, 0);
+    }
+    
+    @Test
+    void testBootstrapIfPending_RunsUntilMarkedCompletedEvenIfTableHasRows() {
+        // Given: el consumidor ya aplicó eventos, pero la carga inicial nunca terminó
+        bootstrapCompleted = false;
+        
+        // When & Then
+        StepVerifier.create(customerProjectionService.bootstrapIfPending())
+                .expectNext(2L)
+                .verifyComplete();
+        assertEquals(1, customerServiceCalls.get());
+        assertTrue(statements.stream().anyMatch(sql -> sql.contains("INSERT INTO customer_projection_state")));
+    }
+    
+    @Test
+    void testBootstrapIfPending_SkipsWhenAlreadyCompleted() {
+        // Given
+        bootstrapCompleted = true;
+        
+        // When & Then
+        StepVerifier.create(customerProjectionService.bootstrapIfPending())
+                .verifyComplete();
+        assertEquals(0, customerServiceCalls.get());
+    }
+    
+    @Test
+    void testBootstrapIfPending_FailedLoadIsNotMarkedCompleted() {
+        // Given
+        bootstrapCompleted = false;
+        customerServiceStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        
+        // When & Then
+        StepVerifier.create(customerProjectionService.bootstrapIfPending())
+                .expectError()
+                .verify();
+        assertTrue(statements.stream().noneMatch(sql -> sql.contains("INSERT INTO customer_projection_state")));
+    }
+    
+    @Test
+    void testBootstrap_FillsNameOfRowCreatedByEventWithoutName() {
+        // Given: un evento antiguo sin nombre creó la fila del cliente 1 antes de la carga inicial
+        bootstrapCompleted = false;
+        CustomerEventDto event = CustomerEventDto.builder()
+                .eventType("UPDATED")
+                .customerId(1L)
+                .status(true)
+                .timestamp(1_000L)
+                .build();
+        StepVerifier.create(customerProjectionService.apply(event))
+                .verifyComplete();
+        
+        // When
+        StepVerifier.create(customerProjectionService.bootstrapIfPending())
+                .expectNext(2L)
+                .verifyComplete();
+        
+        // Then: el evento dejó el nombre en NULL y el snapshot de la carga lo completa en vez de ignorar la fila
+        Map<String, Object> eventBinds = executed.get(0).getValue();
+        assertTrue(eventBinds.containsKey("name"));
+        assertNull(eventBinds.get("name"));
+        Map.Entry<String, Map<String, Object>> snapshot = executed.stream()
+                .filter(entry -> entry.getKey().contains("VALUES (:customerId, :name, :status, false, 0"))
+                .filter(entry -> Long.valueOf(1L).equals(entry.getValue().get("customerId")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Jose Lema", snapshot.getValue().get("name"));
+        assertTrue(snapshot.getKey().contains("DO UPDATE SET"));
+        assertTrue(snapshot.getKey().contains("WHERE customer_projections.name IS NULL AND NOT customer_projections.deleted"));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement(String sql) {
+        statements.add(sql);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        Map<String, Object> binds = new HashMap<>();
+        when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+            binds.put(invocation.getArgument(0), invocation.getArgument(1));
+            return spec;
+        });
+        when(spec.bindNull(anyString(), any())).thenAnswer(invocation -> {
+            binds.put(invocation.getArgument(0), null);
+            return spec;
+        });
+        if (sql.contains("customer_projection_state WHERE")) {
+            RowsFetchSpec<Boolean> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                Function<Row, Boolean> mapper = invocation.getArgument(0);
+                Row row = mock(Row.class);
+                when(row.get("completed", Boolean.class)).thenReturn(bootstrapCompleted);
+                Boolean completed = mapper.apply(row);
+                when(fetch.one()).thenReturn(Mono.just(completed));
+                return fetch;
+            });
+        } else {
+            FetchSpec<Map<String, Object>> fetch = mock(FetchSpec.class);
+            when(fetch.rowsUpdated()).thenReturn(Mono.fromCallable(() -> {
+                executed.add(Map.entry(sql, binds));
+                return 1L;
+            }));
+            when(spec.fetch()).thenReturn(fetch);
+            when(spec.then()).thenReturn(Mono.fromRunnable(() -> executed.add(Map.entry(sql, binds))));
+        }
+        return spec;
+    }
+}
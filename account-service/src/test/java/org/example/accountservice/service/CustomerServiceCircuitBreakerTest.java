@@ -0,0 +1,55 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerServiceCircuitBreakerTest {
+    
+    @Test
+    void testOpensWhenFailureRateReachesThreshold() {
+        // Given
+        CustomerServiceCircuitBreaker breaker = new CustomerServiceCircuitBreaker(new SimpleMeterRegistry(), 4, 4, 50, Duration.ofMinutes(1), 1);
+        
+        // When
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CustomerServiceCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        
+        // Then
+        assertEquals(CustomerServiceCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+    
+    @Test
+    void testHalfOpenTrialClosesOnSuccessAndReopensOnFailure() throws InterruptedException {
+        // Given
+        CustomerServiceCircuitBreaker breaker = new CustomerServiceCircuitBreaker(new SimpleMeterRegistry(), 2, 2, 50, Duration.ofMillis(20), 1);
+        breaker.onFailure();
+        breaker.onFailure();
+        Thread.sleep(30);
+        
+        // When: la llamada de prueba falla
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        
+        // Then
+        assertEquals(CustomerServiceCircuitBreaker.State.OPEN, breaker.getState());
+        
+        // When: la siguiente llamada de prueba responde
+        Thread.sleep(30);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        
+        // Then
+        assertEquals(CustomerServiceCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Row;
+import org.example.accountservice.dto.MovementBatchItemResultDto;
+import org.example.accountservice.dto.MovementBatchResultDto;
+import org.example.accountservice.dto.MovementDto;
+import org.example.accountservice.entity.Account;
+import org.example.accountservice.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovementBatchServiceTest {
+    
+    private final AtomicLong nextId = new AtomicLong(100);
+    // Tamaño de cada INSERT ejecutado, en orden
+    private final List<Integer> insertSizes = new CopyOnWriteArrayList<>();
+    private final Map<Long, BigDecimal> savedBalances = new ConcurrentHashMap<>();
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+    private Long failingAccountId;
+    private MovementBatchService movementBatchService;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findByIdForUpdate(anyLong()))
+                .thenAnswer(invocation -> Mono.justOrEmpty(accounts.get(invocation.<Long>getArgument(0))));
+        
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        
+        TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        DailyRollupService dailyRollupService = mock(DailyRollupService.class);
+        when(dailyRollupService.add(anyLong(), any(), any(), any(), anyInt())).thenReturn(Mono.empty());
+        
+        movementBatchService = new MovementBatchService(accountRepository, databaseClient, transactionalOperator,
+                new MovementSequencer(new SimpleMeterRegistry(), 4),
+                new AccountCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), 2),
+                mock(StatementCache.class), dailyRollupService, 100, 2, 4);
+    }
+    
+    @Test
+    void testCreateMovements_MixedAcceptAndRejectAcrossAccounts() {
+        // Given
+        accounts.put(1L, account(1L, "100.00", true));
+        accounts.put(2L, account(2L, "50.00", true));
+        accounts.put(3L, account(3L, "500.00", false));
+        
+        // When
+        MovementBatchResultDto result = movementBatchService.createMovements(List.of(
+                movement(1L, "DEBIT", "60.00"),
+                movement(2L, "CREDIT", "10.00"),
+                movement(1L, "DEBIT", "60.00"),
+                movement(3L, "CREDIT", "10.00"),
+                movement(1L, "CREDIT", "5.00"),
+                movement(9L, "CREDIT", "1.00"),
+                movement(2L, "TRANSFER", "1.00"))).block();
+        
+        // Then
+        assertEquals(7, result.getTotal());
+        assertEquals(3, result.getSucceeded());
+        List<MovementBatchItemResultDto> items = result.getResults();
+        for (int index = 0; index < items.size(); index++) {
+            assertEquals(index, items.get(index).getIndex());
+        }
+        assertTrue(items.get(0).getSuccess());
+        assertEquals("Saldo no disponible", items.get(2).getError());
+        assertEquals(new BigDecimal("45.00"), items.get(4).getMovement().getBalance());
+        assertEquals("Account is inactive", items.get(3).getError());
+        assertEquals("Account not found with ID: 9", items.get(5).getError());
+        assertEquals("Invalid movement type. Must be DEBIT or CREDIT", items.get(6).getError());
+        assertEquals(new BigDecimal("45.00"), savedBalances.get(1L));
+        assertEquals(new BigDecimal("60.00"), savedBalances.get(2L));
+    }
+    
+    @Test
+    void testCreateMovements_InsertsInChunksAndMapsReturnedIdsByOrdinal() {
+        // Given
+        accounts.put(1L, account(1L, "0.00", true));
+        
+        // When
+        MovementBatchResultDto result = movementBatchService.createMovements(List.of(
+                movement(1L, "CREDIT", "1.00"),
+                movement(1L, "CREDIT", "2.00"),
+                movement(1L, "CREDIT", "3.00"),
+                movement(1L, "CREDIT", "4.00"),
+                movement(1L, "CREDIT", "5.00"))).block();
+        
+        // Then: chunks de 2 y cada id asignado a su fila aunque RETURNING las devuelva en otro orden
+        assertEquals(List.of(2, 2, 1), insertSizes);
+        List<Long> ids = result.getResults().stream().map(item -> item.getMovement().getId()).toList();
+        assertEquals(List.of(100L, 101L, 102L, 103L, 104L), ids);
+        assertEquals(new BigDecimal("3.00"), result.getResults().get(2).getMovement().getValue());
+        assertEquals(new BigDecimal("15.00"), savedBalances.get(1L));
+    }
+    
+    @Test
+    void testCreateMovements_DatabaseErrorRejectsOnlyThatAccountGroup() {
+        // Given
+        accounts.put(1L, account(1L, "100.00", true));
+        accounts.put(2L, account(2L, "100.00", true));
+        failingAccountId = 2L;
+        
+        // When
+        MovementBatchResultDto result = movementBatchService.createMovements(List.of(
+                movement(1L, "DEBIT", "10.00"),
+                movement(2L, "DEBIT", "10.00"))).block();
+        
+        // Then
+        assertEquals(2, result.getTotal());
+        assertTrue(result.getResults().get(0).getSuccess());
+        assertFalse(result.getResults().get(1).getSuccess());
+        assertEquals("connection lost", result.getResults().get(1).getError());
+        assertNull(savedBalances.get(2L));
+    }
+    
+    // Cada INSERT devuelve (ordinal, id) por fila, en orden inverso; el UPDATE de saldo guarda el saldo final de la cuenta
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement(String sql) {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        Map<String, Object> bindings = new ConcurrentHashMap<>();
+        when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+            bindings.put(invocation.getArgument(0), invocation.getArgument(1));
+            return spec;
+        });
+        if (sql.contains("INSERT INTO movements")) {
+            int rows = sql.split(":type").length - 1;
+            RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                Function<Row, Object> mapper = invocation.getArgument(0);
+                when(fetch.all()).thenAnswer(all -> {
+                    if (bindings.get("accountId").equals(failingAccountId)) {
+                        return Flux.error(new DataAccessResourceFailureException("connection lost"));
+                    }
+                    insertSizes.add(rows);
+                    long firstId = nextId.getAndAdd(rows);
+                    List<Object> inserted = new ArrayList<>();
+                    for (int i = rows - 1; i >= 0; i--) {
+                        Row row = mock(Row.class);
+                        when(row.get("ordinal", Integer.class)).thenReturn(i);
+                        when(row.get("id", Long.class)).thenReturn(firstId + i);
+                        inserted.add(mapper.apply(row));
+                    }
+                    return Flux.fromIterable(inserted);
+                });
+                return fetch;
+            });
+        } else {
+            when(spec.then()).thenAnswer(invocation -> Mono.fromRunnable(
+                    () -> savedBalances.put((Long) bindings.get("id"), (BigDecimal) bindings.get("balance"))));
+        }
+        return spec;
+    }
+    
+    private static Account account(Long id, String balance, boolean status) {
+        return Account.builder()
+                .id(id)
+                .accountNumber("ACC-" + id)
+                .accountType("SAVINGS")
+                .initialBalance(new BigDecimal(balance))
+                .currentBalance(new BigDecimal(balance))
+                .status(status)
+                .customerId(1L)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+    
+    private static MovementDto movement(Long accountId, String type, String value) {
+        return MovementDto.builder()
+                .accountId(accountId)
+                .movementType(type)
+                .value(new BigDecimal(value))
+                .build();
+    }
+}
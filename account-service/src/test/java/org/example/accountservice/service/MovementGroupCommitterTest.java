@@ -0,0 +1,141 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovementGroupCommitterTest {
+    
+    private final AtomicInteger transactions = new AtomicInteger();
+    private final AtomicBoolean failNextCommit = new AtomicBoolean();
+    private TransactionalOperator transactionalOperator;
+    private SimpleMeterRegistry meterRegistry;
+    private MovementGroupCommitter committer;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionalOperator = mock(TransactionalOperator.class);
+        // Simula el commit del grupo: si falla, el trabajo ya hecho dentro de la transacción se revierte
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> {
+            transactions.incrementAndGet();
+            Mono<Object> group = invocation.getArgument(0);
+            return failNextCommit.getAndSet(false)
+                    ? group.then(Mono.error(new IllegalStateException("commit failed")))
+                    : group;
+        });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        committer.shutdown();
+    }
+    
+    @Test
+    void testSubmit_GroupsByMaxBatchSize() {
+        // Given: ventana larga, el grupo se cierra al llegar a 3 movimientos
+        committer = new MovementGroupCommitter(transactionalOperator, meterRegistry, true, Duration.ofSeconds(10), 3, 4);
+        
+        // When
+        List<Integer> results = Flux.range(1, 3)
+                .flatMap(value -> committer.submit(() -> Mono.just(value * 10)))
+                .collectSortedList()
+                .block(Duration.ofSeconds(5));
+        
+        // Then
+        assertEquals(List.of(10, 20, 30), results);
+        assertEquals(1, transactions.get());
+        assertEquals(3.0, meterRegistry.get("movement.group-commit.batch.size").summary().totalAmount());
+    }
+    
+    @Test
+    void testSubmit_GroupsWithinWindow() {
+        // Given
+        committer = new MovementGroupCommitter(transactionalOperator, meterRegistry, true, Duration.ofMillis(50), 64, 4);
+        
+        // When
+        StepVerifier.create(Mono.zip(committer.submit(() -> Mono.just("a")), committer.submit(() -> Mono.just("b"))))
+                .assertNext(results -> {
+                    assertEquals("a", results.getT1());
+                    assertEquals("b", results.getT2());
+                })
+                .verifyComplete();
+        
+        // Then
+        assertEquals(1, transactions.get());
+        assertEquals(1, meterRegistry.get("movement.group-commit.batch.size").summary().count());
+    }
+    
+    @Test
+    void testSubmit_EmptyResultReachesItsCaller() {
+        // Given
+        committer = new MovementGroupCommitter(transactionalOperator, meterRegistry, true, Duration.ofMillis(50), 2, 4);
+        
+        // When & Then: un movimiento rechazado (sin fila) no toma el resultado de otro del mismo grupo
+        StepVerifier.create(Mono.zip(
+                        committer.submit(() -> Mono.just("posted")),
+                        committer.submit(Mono::<String>empty).defaultIfEmpty("rejected")))
+                .assertNext(results -> {
+                    assertEquals("posted", results.getT1());
+                    assertEquals("rejected", results.getT2());
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    void testSubmit_FailedGroupIsReplayedOneByOne() {
+        // Given
+        committer = new MovementGroupCommitter(transactionalOperator, meterRegistry, true, Duration.ofMillis(50), 2, 4);
+        failNextCommit.set(true);
+        AtomicInteger firstRuns = new AtomicInteger();
+        AtomicInteger secondRuns = new AtomicInteger();
+        
+        // When
+        CompletableFuture<String> first = committer.submit(() -> Mono.fromSupplier(() -> "first-" + firstRuns.incrementAndGet()))
+                .toFuture();
+        CompletableFuture<String> second = committer.submit(() -> secondRuns.incrementAndGet() == 1
+                        ? Mono.just("second-in-group")
+                        : Mono.<String>error(new RuntimeException("Saldo no disponible")))
+                .toFuture();
+        
+        // Then: cada llamador recibe el resultado de su propio reintento individual
+        StepVerifier.create(Mono.fromFuture(first))
+                .expectNext("first-2")
+                .verifyComplete();
+        StepVerifier.create(Mono.fromFuture(second))
+                .expectErrorMessage("Saldo no disponible")
+                .verify();
+        assertEquals(1.0, meterRegistry.get("movement.group-commit.fallbacks").counter().count());
+    }
+    
+    @Test
+    void testSubmit_PostsDirectlyWhenQueueIsClosed() {
+        // Given
+        committer = new MovementGroupCommitter(transactionalOperator, meterRegistry, true, Duration.ofMillis(50), 2, 4);
+        committer.shutdown();
+        
+        // When & Then
+        StepVerifier.create(committer.submit(() -> Mono.just("direct")))
+                .expectNext("direct")
+                .verifyComplete();
+        assertEquals(0, transactions.get());
+        assertEquals(1.0, meterRegistry.get("movement.group-commit.direct").counter().count());
+    }
+}
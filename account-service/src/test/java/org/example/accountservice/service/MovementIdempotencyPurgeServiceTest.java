@@ -0,0 +1,84 @@
+package org.example.accountservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovementIdempotencyPurgeServiceTest {
+    
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 3, 3, 0, 30);
+    
+    // Filas que borra cada DELETE ejecutado, en orden, y los binds con que se ejecutó
+    private final Deque<Long> deletedPerBatch = new ArrayDeque<>();
+    private final List<Map<String, Object>> executed = new CopyOnWriteArrayList<>();
+    private MovementIdempotencyPurgeService purgeService;
+    
+    @BeforeEach
+    void setUp() {
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement());
+        purgeService = new MovementIdempotencyPurgeService(databaseClient, Duration.ofDays(7), Duration.ofHours(24), 100);
+    }
+    
+    @Test
+    void testPurgeOlderThan_DeletesBatchesUntilOneIsIncomplete() {
+        // Given
+        deletedPerBatch.addAll(List.of(100L, 100L, 37L));
+        
+        // When & Then
+        StepVerifier.create(purgeService.purgeOlderThan(CUTOFF))
+                .expectNext(237L)
+                .verifyComplete();
+        assertEquals(3, executed.size());
+        assertEquals(CUTOFF, executed.get(0).get("cutoff"));
+        assertEquals(100, executed.get(0).get("batchSize"));
+    }
+    
+    @Test
+    void testPurgeOlderThan_NothingToDelete() {
+        // Given
+        deletedPerBatch.add(0L);
+        
+        // When & Then
+        StepVerifier.create(purgeService.purgeOlderThan(CUTOFF))
+                .expectNext(0L)
+                .verifyComplete();
+        assertEquals(1, executed.size());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement() {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        Map<String, Object> binds = new ConcurrentHashMap<>();
+        when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+            binds.put(invocation.getArgument(0), invocation.getArgument(1));
+            return spec;
+        });
+        FetchSpec<Map<String, Object>> fetch = mock(FetchSpec.class);
+        when(fetch.rowsUpdated()).thenReturn(Mono.fromCallable(() -> {
+            executed.add(binds);
+            return deletedPerBatch.poll();
+        }));
+        when(spec.fetch()).thenReturn(fetch);
+        return spec;
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.accountservice.service;
+
+import io.r2dbc.spi.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovementPartitionServiceTest {
+    
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final List<Object> createdMonths = new CopyOnWriteArrayList<>();
+    private final List<Object> cutoffs = new CopyOnWriteArrayList<>();
+    private List<String> expiredPartitions;
+    // Cuentas sin cierre que cubra el mes, por inicio de mes
+    private Map<LocalDateTime, Long> uncoveredAccounts;
+    private DatabaseClient databaseClient;
+    
+    @BeforeEach
+    void setUp() {
+        expiredPartitions = List.of();
+        uncoveredAccounts = new HashMap<>();
+        databaseClient = mock(DatabaseClient.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+    }
+    
+    @Test
+    void testCreateFuturePartitions_CurrentMonthAndMonthsAhead() {
+        // Given
+        MovementPartitionService movementPartitionService = new MovementPartitionService(databaseClient, 2, 0, Duration.ofSeconds(5));
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        
+        // When & Then
+        StepVerifier.create(movementPartitionService.createFuturePartitions())
+                .verifyComplete();
+        assertEquals(List.of(currentMonth, currentMonth.plusMonths(1), currentMonth.plusMonths(2)), createdMonths);
+    }
+    
+    @Test
+    void testDetachExpiredPartitions_OnlyMonthlyPartitionsCoveredByCheckpoints() {
+        // Given: la partición por defecto nunca se desacopla
+        MovementPartitionService movementPartitionService = new MovementPartitionService(databaseClient, 3, 12, Duration.ofSeconds(5));
+        expiredPartitions = List.of("movements_2023_01", "movements_2023_02", "movements_default");
+        
+        // When & Then
+        StepVerifier.create(movementPartitionService.detachExpiredPartitions())
+                .verifyComplete();
+        String expectedCutoff = "movements_" + LocalDate.now().withDayOfMonth(1).minusMonths(12)
+                .format(DateTimeFormatter.ofPattern("yyyy_MM"));
+        assertEquals(List.of(expectedCutoff), cutoffs);
+        assertEquals(List.of("movements_2023_01", "movements_2023_02"), detached());
+    }
+    
+    @Test
+    void testDetachExpiredPartitions_KeepsMonthWithAccountsWithoutCheckpoint() {
+        // Given: en febrero una cuenta no tiene cierre posterior a su último movimiento del mes
+        MovementPartitionService movementPartitionService = new MovementPartitionService(databaseClient, 3, 12, Duration.ofSeconds(5));
+        expiredPartitions = List.of("movements_2023_01", "movements_2023_02", "movements_2023_03");
+        uncoveredAccounts.put(LocalDateTime.of(2023, 2, 1, 0, 0), 1L);
+        
+        // When & Then
+        StepVerifier.create(movementPartitionService.detachExpiredPartitions())
+                .verifyComplete();
+        assertEquals(List.of("movements_2023_01", "movements_2023_03"), detached());
+    }
+    
+    @Test
+    void testDetachExpiredPartitions_PlainDetachWithLockTimeout() {
+        // Given: con partición por defecto Postgres rechaza DETACH ... CONCURRENTLY
+        MovementPartitionService movementPartitionService = new MovementPartitionService(databaseClient, 3, 12, Duration.ofSeconds(5));
+        expiredPartitions = List.of("movements_2023_01");
+        
+        // When & Then
+        StepVerifier.create(movementPartitionService.detachExpiredPartitions())
+                .verifyComplete();
+        String detach = statements.stream().filter(sql -> sql.contains("DETACH PARTITION")).findFirst().orElseThrow();
+        assertTrue(detach.contains("SET LOCAL lock_timeout = '5000ms'"), detach);
+        assertTrue(detach.contains("ALTER TABLE movements DETACH PARTITION movements_2023_01;"), detach);
+        assertTrue(!detach.contains("CONCURRENTLY"), detach);
+    }
+    
+    private List<String> detached() {
+        return statements.stream()
+                .filter(sql -> sql.contains("DETACH PARTITION"))
+                .map(sql -> {
+                    int start = sql.indexOf("DETACH PARTITION ") + "DETACH PARTITION ".length();
+                    return sql.substring(start, sql.indexOf(';', start));
+                })
+                .toList();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement(String sql) {
+        statements.add(sql);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        Map<String, Object> binds = new HashMap<>();
+        when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+            binds.put(invocation.getArgument(0), invocation.getArgument(1));
+            if ("month".equals(invocation.getArgument(0))) {
+                createdMonths.add(invocation.getArgument(1));
+            } else if ("cutoff".equals(invocation.getArgument(0))) {
+                cutoffs.add(invocation.getArgument(1));
+            }
+            return spec;
+        });
+        RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+        when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+            Function<Row, Object> mapper = invocation.getArgument(0);
+            if (sql.contains("AS uncovered")) {
+                Row row = mock(Row.class);
+                when(row.get("uncovered", Long.class)).thenReturn(uncoveredAccounts.getOrDefault(binds.get("monthStart"), 0L));
+                Object uncovered = mapper.apply(row);
+                when(fetch.one()).thenReturn(Mono.just(uncovered));
+            } else if (sql.contains("create_movements_partition")) {
+                Row row = mock(Row.class);
+                when(row.get("partition_name", String.class)).thenReturn("movements_partition");
+                Object name = mapper.apply(row);
+                when(fetch.one()).thenReturn(Mono.just(name));
+            } else {
+                List<Object> names = expiredPartitions.stream()
+                        .map(partition -> {
+                            Row row = mock(Row.class);
+                            when(row.get("partition_name", String.class)).thenReturn(partition);
+                            return mapper.apply(row);
+                        })
+                        .toList();
+                when(fetch.all()).thenReturn(Flux.fromIterable(names));
+            }
+            return fetch;
+        });
+        when(spec.then()).thenReturn(Mono.empty());
+        return spec;
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovementSequencerTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private MovementSequencer movementSequencer;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        movementSequencer = new MovementSequencer(meterRegistry, 4);
+    }
+    
+    @Test
+    void testSubmit_SameAccount_RunsOneAtATimeInOrder() {
+        // Given
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        
+        // When
+        Flux<Integer> results = Flux.range(0, 20)
+                .flatMap(i -> movementSequencer.submit(1L, () -> Mono.fromCallable(() -> {
+                            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            order.add(i);
+                            return i;
+                        })
+                        .delayElement(Duration.ofMillis(2))
+                        .doOnTerminate(inFlight::decrementAndGet)));
+        
+        // Then
+        StepVerifier.create(results)
+                .expectNextCount(20)
+                .verifyComplete();
+        assertEquals(1, maxInFlight.get());
+        assertEquals(Flux.range(0, 20).collectList().block(), order);
+    }
+    
+    @Test
+    void testSubmit_LongBacklogOfSynchronousTasksDoesNotOverflowTheStack() {
+        // Given: la franja está ocupada mientras se encolan muchas tareas que terminan de forma síncrona
+        Sinks.One<String> blocker = Sinks.one();
+        Mono<String> first = movementSequencer.submit(1L, blocker::asMono);
+        first.subscribe();
+        AtomicInteger completed = new AtomicInteger();
+        Flux.range(0, 50_000)
+                .flatMap(i -> movementSequencer.submit(1L, () -> Mono.just(i)), Integer.MAX_VALUE)
+                .subscribe(value -> completed.incrementAndGet());
+        
+        // When
+        blocker.tryEmitValue("done");
+        
+        // Then
+        assertEquals(50_000, completed.get());
+        StepVerifier.create(movementSequencer.submit(1L, () -> Mono.just("next")))
+                .expectNext("next")
+                .verifyComplete();
+    }
+    
+    @Test
+    void testSubmit_ErrorIsPropagatedAndNextTaskRuns() {
+        // Given
+        Mono<String> failing = movementSequencer.submit(1L, () -> Mono.error(new RuntimeException("Saldo no disponible")));
+        Mono<String> next = movementSequencer.submit(1L, () -> Mono.just("ok"));
+        
+        // When & Then
+        StepVerifier.create(failing)
+                .expectErrorMessage("Saldo no disponible")
+                .verify();
+        StepVerifier.create(next)
+                .expectNext("ok")
+                .verifyComplete();
+    }
+    
+    @Test
+    void testSubmit_RecordsWaitTime() {
+        // When
+        StepVerifier.create(movementSequencer.submit(7L, () -> Mono.just(1)))
+                .expectNext(1)
+                .verifyComplete();
+        
+        // Then
+        long recorded = meterRegistry.find("movement.sequencer.wait").timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+        assertEquals(1, recorded);
+    }
+}
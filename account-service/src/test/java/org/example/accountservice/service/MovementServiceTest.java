@@ -1,6 +1,8 @@
 package org.example.accountservice.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.example.accountservice.dto.MovementDto;
+import org.example.accountservice.dto.MovementPageDto;
 import org.example.accountservice.entity.Account;
 import org.example.accountservice.entity.Movement;
 import org.example.accountservice.mapper.MovementMapper;
@@ -11,14 +13,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +45,27 @@ class MovementServiceTest {
     @Mock
     private MovementMapper movementMapper;
     
+    @Mock
+    private BalanceCheckpointService balanceCheckpointService;
+    
+    @Mock
+    private StatementCache statementCache;
+    
+    @Mock
+    private DailyRollupService dailyRollupService;
+    
+    @Spy
+    private MovementSequencer movementSequencer = new MovementSequencer(new SimpleMeterRegistry(), 4);
+    
+    @Spy
+    private MovementIdempotencyCache idempotencyCache = new MovementIdempotencyCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    
+    @Spy
+    private MovementGroupCommitter groupCommitter = new MovementGroupCommitter(null, new SimpleMeterRegistry(), false, Duration.ofMillis(2), 64, 4);
+    
+    @Spy
+    private AccountCache accountCache = new AccountCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), 2);
+    
     @InjectMocks
     private MovementService movementService;
     
@@ -74,10 +107,9 @@ class MovementServiceTest {
     @Test
     void testCreateMovement_Debit_Success() {
         // Given
-        when(accountRepository.findById(1L)).thenReturn(Mono.just(testAccount));
-        when(accountRepository.save(any(Account.class))).thenReturn(Mono.just(testAccount));
-        when(movementMapper.toEntity(any(MovementDto.class))).thenReturn(testMovement);
-        when(movementRepository.save(any(Movement.class))).thenReturn(Mono.just(testMovement));
+        when(movementRepository.postMovement(eq(1L), eq("DEBIT"), eq(new BigDecimal("100.00")),
+                eq(new BigDecimal("-100.00")), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(testMovement));
         when(movementMapper.toDto(any(Movement.class))).thenReturn(testMovementDto);
         
         // When & Then
@@ -90,6 +122,9 @@ class MovementServiceTest {
     void testCreateMovement_InsufficientBalance_Error() {
         // Given
         testMovementDto.setValue(new BigDecimal("2000.00"));
+        when(movementRepository.postMovement(eq(1L), eq("DEBIT"), any(BigDecimal.class),
+                any(BigDecimal.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.empty());
         when(accountRepository.findById(1L)).thenReturn(Mono.just(testAccount));
         
         // When & Then
@@ -112,5 +147,138 @@ class MovementServiceTest {
                     throwable.getMessage().equals("Movement value must be greater than zero"))
                 .verify();
     }
+    
+    @Test
+    void testCreateMovement_InactiveAccount_Error() {
+        // Given
+        testAccount.setStatus(false);
+        when(movementRepository.postMovement(eq(1L), eq("DEBIT"), any(BigDecimal.class),
+                any(BigDecimal.class), any(LocalDateTime.class)))
+                .thenReturn(Mono.empty());
+        when(accountRepository.findById(1L)).thenReturn(Mono.just(testAccount));
+        
+        // When & Then
+        StepVerifier.create(movementService.createMovement(testMovementDto))
+                .expectErrorMatches(throwable -> 
+                    throwable instanceof RuntimeException && 
+                    throwable.getMessage().equals("Account is inactive"))
+                .verify();
+    }
+    
+    @Test
+    void testCreateMovement_IdempotencyKeyReplay_ReturnsOriginalWithoutPosting() {
+        // Given
+        MovementDto original = MovementDto.builder()
+                .id(1L)
+                .accountId(1L)
+                .movementType("DEBIT")
+                .value(new BigDecimal("100.00"))
+                .balance(new BigDecimal("900.00"))
+                .build();
+        idempotencyCache.put("retry-1", original);
+        
+        // When & Then
+        StepVerifier.create(movementService.createMovement(testMovementDto, "retry-1"))
+                .expectNext(original)
+                .verifyComplete();
+        verifyNoInteractions(movementRepository);
+    }
+    
+    @Test
+    void testCreateMovement_IdempotencyKeyReusedWithDifferentPayload_Error() {
+        // Given
+        idempotencyCache.put("retry-2", MovementDto.builder()
+                .id(1L)
+                .accountId(1L)
+                .movementType("CREDIT")
+                .value(new BigDecimal("100.00"))
+                .build());
+        
+        // When & Then
+        StepVerifier.create(movementService.createMovement(testMovementDto, "retry-2"))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+    
+    @Test
+    void testCreateMovement_IdempotencyKeyRetryMissingFromCache_ReturnsOriginalInsteadOfRejecting() {
+        // Given: el débito original dejó la cuenta sin saldo y el reintento llega a otra instancia
+        MovementDto original = MovementDto.builder()
+                .id(1L)
+                .accountId(1L)
+                .movementType("DEBIT")
+                .value(new BigDecimal("100.00"))
+                .balance(BigDecimal.ZERO)
+                .build();
+        when(movementRepository.postMovementWithIdempotencyKey(eq(1L), eq("DEBIT"), any(BigDecimal.class),
+                any(BigDecimal.class), any(LocalDateTime.class), eq("retry-3")))
+                .thenReturn(Mono.empty());
+        when(movementRepository.findByIdempotencyKey("retry-3")).thenReturn(Mono.just(testMovement));
+        when(movementMapper.toDto(testMovement)).thenReturn(original);
+        
+        // When & Then
+        StepVerifier.create(movementService.createMovement(testMovementDto, "retry-3"))
+                .expectNext(original)
+                .verifyComplete();
+        verifyNoInteractions(accountRepository);
+        assertEquals(original, idempotencyCache.get("retry-3"));
+    }
+    
+    @Test
+    void testCreateMovement_IdempotencyKeyPointsToMissingMovement_Conflict() {
+        // Given
+        when(movementRepository.postMovementWithIdempotencyKey(eq(1L), eq("DEBIT"), any(BigDecimal.class),
+                any(BigDecimal.class), any(LocalDateTime.class), eq("retry-4")))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+        when(movementRepository.findByIdempotencyKey("retry-4")).thenReturn(Mono.empty());
+        
+        // When & Then
+        StepVerifier.create(movementService.createMovement(testMovementDto, "retry-4"))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException exception
+                        && exception.getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
+    }
+    
+    @Test
+    void testGetMovementsPageByAccountId_ReturnsCursorUsableForNextPage() {
+        // Given
+        Movement newest = movementAt(3L, LocalDateTime.of(2024, 1, 3, 10, 0));
+        Movement middle = movementAt(2L, LocalDateTime.of(2024, 1, 2, 10, 0));
+        Movement oldest = movementAt(1L, LocalDateTime.of(2024, 1, 1, 10, 0));
+        when(movementRepository.findFirstPageByAccountId(1L, 3)).thenReturn(Flux.just(newest, middle, oldest));
+        when(movementRepository.findPageByAccountIdAfter(1L, middle.getMovementDate(), 2L, 3)).thenReturn(Flux.just(oldest));
+        when(movementMapper.toDto(any(Movement.class))).thenReturn(testMovementDto);
+        
+        // When & Then
+        MovementPageDto firstPage = movementService.getMovementsPageByAccountId(1L, null, 2).block();
+        assertEquals(2, firstPage.getMovements().size());
+        assertNotNull(firstPage.getNextCursor());
+        
+        StepVerifier.create(movementService.getMovementsPageByAccountId(1L, firstPage.getNextCursor(), 2))
+                .expectNextMatches(page -> page.getMovements().size() == 1 && page.getNextCursor() == null)
+                .verifyComplete();
+    }
+    
+    @Test
+    void testGetMovementsPage_InvalidCursor_Error() {
+        // When & Then
+        StepVerifier.create(movementService.getMovementsPage("invalid!", 10))
+                .expectErrorMatches(throwable ->
+                    throwable instanceof IllegalArgumentException &&
+                    throwable.getMessage().equals("Invalid cursor"))
+                .verify();
+        verifyNoInteractions(movementRepository);
+    }
+    
+    private Movement movementAt(Long id, LocalDateTime movementDate) {
+        return Movement.builder()
+                .id(id)
+                .accountId(1L)
+                .movementType("DEBIT")
+                .value(new BigDecimal("100.00"))
+                .balance(new BigDecimal("900.00"))
+                .movementDate(movementDate)
+                .createdAt(movementDate)
+                .build();
+    }
 }
-
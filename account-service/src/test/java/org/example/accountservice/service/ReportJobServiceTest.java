@@ -0,0 +1,149 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.accountservice.dto.ReportJobDto;
+import org.example.accountservice.dto.ReportJobRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+    
+    @Mock
+    private ReportService reportService;
+    
+    @TempDir
+    private Path directory;
+    
+    private ReportJobService reportJobService;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        reportJobService = new ReportJobService(reportService, new SimpleMeterRegistry(), 1, 1, 1,
+                Duration.ofHours(1), directory.toString());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        reportJobService.shutdown();
+    }
+    
+    @Test
+    void testStartup_DeletesOnlyLeftoverJobFiles() throws Exception {
+        // Given: un resultado de una ejecución anterior y archivos ajenos en el mismo directorio
+        Path leftover = Files.writeString(directory.resolve("3f2b8c1e-5d4a-4b6f-9e21-7a0c9d8e6b15.xlsx"), "report");
+        Path unrelated = Files.writeString(directory.resolve("notes.csv"), "keep");
+        Path backup = Files.writeString(directory.resolve("3f2b8c1e-5d4a-4b6f-9e21-7a0c9d8e6b15.xlsx.bak"), "keep");
+        
+        // When
+        new ReportJobService(reportService, new SimpleMeterRegistry(), 1, 1, 1, Duration.ofHours(1), directory.toString())
+                .shutdown();
+        
+        // Then
+        assertFalse(Files.exists(leftover));
+        assertTrue(Files.exists(unrelated));
+        assertTrue(Files.exists(backup));
+    }
+    
+    @Test
+    void testSubmit_WritesResultToDisk() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(4).write("fecha,cliente\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reportService).writeAccountStatement(eq(1L), any(), any(), eq("csv"), any());
+        
+        // When
+        ReportJobDto queued = reportJobService.submit(request(1L, "CSV"));
+        ReportJobDto job = awaitFinished(queued.getJobId());
+        
+        // Then
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(14L, job.getSizeBytes());
+        assertEquals("fecha,cliente\n", Files.readString(reportJobService.getResult(queued.getJobId()).getFile().toPath()));
+    }
+    
+    @Test
+    void testSubmit_RejectsJobsOverClientLimit() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                .when(reportService).writeAccountStatement(eq(1L), any(), any(), eq("json"), any());
+        ReportJobDto running = reportJobService.submit(request(1L, null));
+        
+        // When
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> reportJobService.submit(request(1L, "json")));
+        
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, error.getStatusCode());
+        ResponseStatusException notReady = assertThrows(ResponseStatusException.class,
+                () -> reportJobService.getResult(running.getJobId()));
+        assertEquals(HttpStatus.CONFLICT, notReady.getStatusCode());
+        release.countDown();
+        assertEquals("COMPLETED", awaitFinished(running.getJobId()).getStatus());
+        assertEquals(0, reportJobService.activeClientCount());
+    }
+    
+    @Test
+    void testSubmit_FailedJobKeepsError() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            throw new RuntimeException("No accounts found for customer ID: 2");
+        }).when(reportService).writeAccountStatement(eq(2L), any(), any(), eq("excel"), any());
+        
+        // When
+        ReportJobDto job = awaitFinished(reportJobService.submit(request(2L, "excel")).getJobId());
+        
+        // Then
+        assertEquals("FAILED", job.getStatus());
+        assertEquals("No accounts found for customer ID: 2", job.getError());
+        assertEquals(0, reportJobService.activeClientCount());
+        try (var files = Files.list(directory)) {
+            assertTrue(files.findAny().isEmpty());
+        }
+    }
+    
+    private ReportJobRequestDto request(Long clientId, String format) {
+        return ReportJobRequestDto.builder()
+                .clientId(clientId)
+                .startDate(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .endDate(LocalDateTime.of(2025, 1, 31, 23, 59))
+                .format(format)
+                .build();
+    }
+    
+    private ReportJobDto awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ReportJobDto job = reportJobService.getJob(jobId);
+        while (!"COMPLETED".equals(job.getStatus()) && !"FAILED".equals(job.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = reportJobService.getJob(jobId);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportRenderExecutorTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private ReportRenderExecutor renderExecutor;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        renderExecutor = new ReportRenderExecutor(meterRegistry, 1, 1);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        renderExecutor.shutdown();
+    }
+    
+    @Test
+    void testRender_WritesOnRenderThread() {
+        StepVerifier.create(renderExecutor.render((outputStream, cancelled) -> write(outputStream, Thread.currentThread().getName()),
+                        DefaultDataBufferFactory.sharedInstance)
+                        .map(this::asString))
+                .assertNext(text -> assertTrue(text.startsWith("report-render-"), text))
+                .verifyComplete();
+    }
+    
+    @Test
+    void testRender_RejectsWhenSaturated() throws InterruptedException {
+        // Given: el único hilo y el único lugar en cola ocupados
+        CountDownLatch release = new CountDownLatch(1);
+        Flux<DataBuffer> blocked = renderExecutor.render((outputStream, cancelled) -> {
+            await(release);
+            write(outputStream, "done");
+        }, DefaultDataBufferFactory.sharedInstance);
+        Disposable first = blocked.subscribe(DataBufferUtils::release);
+        Disposable second = blocked.subscribe(DataBufferUtils::release);
+        
+        // When / Then
+        StepVerifier.create(renderExecutor.render((outputStream, cancelled) -> write(outputStream, "rejected"), DefaultDataBufferFactory.sharedInstance))
+                .expectErrorSatisfies(error -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) error).getStatusCode()))
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1.0, meterRegistry.get("report.render.rejected").counter().count());
+        
+        release.countDown();
+        first.dispose();
+        second.dispose();
+    }
+    
+    @Test
+    void testRender_WriterSeesCancellation() throws InterruptedException {
+        // Given: un writer que acumula sin escribir hasta que se le cancela
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Disposable download = renderExecutor.render((outputStream, cancelled) -> {
+            started.countDown();
+            while (!cancelled.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            stopped.countDown();
+        }, DefaultDataBufferFactory.sharedInstance).subscribe(DataBufferUtils::release);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        // When
+        download.dispose();
+        
+        // Then: el writer termina y libera su lugar en el pool
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        StepVerifier.create(renderExecutor.render((outputStream, cancelled) -> write(outputStream, "next"), DefaultDataBufferFactory.sharedInstance)
+                        .map(this::asString))
+                .expectNext("next")
+                .verifyComplete();
+    }
+    
+    private void write(OutputStream outputStream, String text) {
+        try {
+            outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private String asString(DataBuffer buffer) {
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return text;
+    }
+}
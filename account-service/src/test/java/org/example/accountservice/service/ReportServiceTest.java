@@ -0,0 +1,134 @@
+package org.example.accountservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.accountservice.dto.CustomerInfoDto;
+import org.example.accountservice.dto.MovementReportDto;
+import org.example.accountservice.entity.Account;
+import org.example.accountservice.entity.Movement;
+import org.example.accountservice.repository.AccountRepository;
+import org.example.accountservice.repository.MovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2025, 1, 31, 23, 59, 59);
+    
+    @Mock
+    private AccountRepository accountRepository;
+    
+    @Mock
+    private MovementRepository movementRepository;
+    
+    @Mock
+    private CustomerProjectionService customerProjectionService;
+    
+    @Mock
+    private StatementCache statementCache;
+    
+    @Mock
+    private DailyRollupService dailyRollupService;
+    
+    private ReportService reportService;
+    
+    @BeforeEach
+    void setUp() {
+        reportService = new ReportService(accountRepository, movementRepository, customerProjectionService,
+                statementCache, dailyRollupService, new ObjectMapper(), null, 2);
+        when(customerProjectionService.getCustomer(1L))
+                .thenReturn(Mono.just(CustomerInfoDto.builder().id(1L).name("Jose Lema").build()));
+    }
+    
+    @Test
+    void testStreamMovementReport_MergesAccountsByDate() {
+        // Given
+        Account savings = account(10L, "478758");
+        Account checking = account(11L, "225487");
+        when(accountRepository.findByCustomerId(1L)).thenReturn(Flux.just(savings, checking));
+        when(movementRepository.findByAccountIdAndMovementDateBetween(10L, START, END))
+                .thenReturn(Flux.just(movement(100L, 10L, START.plusDays(20)), movement(101L, 10L, START.plusDays(5))));
+        when(movementRepository.findByAccountIdAndMovementDateBetween(11L, START, END))
+                .thenReturn(Flux.just(movement(200L, 11L, START.plusDays(10)), movement(201L, 11L, START.plusDays(1))));
+        
+        // When / Then
+        StepVerifier.create(reportService.streamMovementReport(1L, START, END).map(MovementReportDto::getFecha))
+                .expectNext(START.plusDays(20), START.plusDays(10), START.plusDays(5), START.plusDays(1))
+                .verifyComplete();
+        verify(movementRepository, never()).findStatementRows(any(), any(), any());
+    }
+    
+    @Test
+    void testStreamMovementReport_AccountWithoutMovementsKeepsPlaceholder() {
+        // Given
+        Account savings = account(10L, "478758");
+        Account checking = account(11L, "225487");
+        when(accountRepository.findByCustomerId(1L)).thenReturn(Flux.just(savings, checking));
+        when(movementRepository.findByAccountIdAndMovementDateBetween(10L, START, END))
+                .thenReturn(Flux.just(movement(100L, 10L, START.plusDays(20))));
+        when(movementRepository.findByAccountIdAndMovementDateBetween(11L, START, END)).thenReturn(Flux.empty());
+        
+        // When / Then
+        StepVerifier.create(reportService.streamMovementReport(1L, START, END))
+                .assertNext(row -> assertEquals("478758", row.getNumeroCuenta()))
+                .assertNext(row -> {
+                    assertEquals("225487", row.getNumeroCuenta());
+                    assertEquals("Sin movimientos", row.getTipoMovimiento());
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    void testStreamMovementReport_ManyAccountsUseJoinedQuery() {
+        // Given
+        when(accountRepository.findByCustomerId(1L))
+                .thenReturn(Flux.just(account(10L, "1"), account(11L, "2"), account(12L, "3")));
+        when(movementRepository.findStatementRows(1L, START, END)).thenReturn(Flux.empty());
+        
+        // When / Then
+        StepVerifier.create(reportService.streamMovementReport(1L, START, END))
+                .expectErrorMessage("No accounts found for customer ID: 1")
+                .verify();
+        verify(movementRepository, never()).findByAccountIdAndMovementDateBetween(any(), any(), any());
+    }
+    
+    private Account account(Long id, String number) {
+        return Account.builder()
+                .id(id)
+                .accountNumber(number)
+                .accountType("SAVINGS")
+                .initialBalance(new BigDecimal("1000.00"))
+                .currentBalance(new BigDecimal("1000.00"))
+                .status(true)
+                .customerId(1L)
+                .createdAt(START.minusMonths(1))
+                .build();
+    }
+    
+    private Movement movement(Long id, Long accountId, LocalDateTime date) {
+        return Movement.builder()
+                .id(id)
+                .accountId(accountId)
+                .movementDate(date)
+                .movementType("CREDIT")
+                .value(new BigDecimal("100.00"))
+                .balance(new BigDecimal("1100.00"))
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.accountservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.accountservice.dto.CustomerInfoDto;
+import org.example.accountservice.dto.StatementRow;
+import org.example.accountservice.entity.Account;
+import org.example.accountservice.entity.Movement;
+import org.example.accountservice.repository.AccountRepository;
+import org.example.accountservice.repository.MovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StatementCacheTest {
+    
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime JAN_31 = LocalDateTime.of(2025, 1, 31, 23, 59, 59);
+    private static final LocalDateTime FEB_28 = LocalDateTime.of(2025, 2, 28, 23, 59, 59);
+    
+    @Mock
+    private AccountRepository accountRepository;
+    
+    @Mock
+    private MovementRepository movementRepository;
+    
+    @Mock
+    private CustomerProjectionService customerProjectionService;
+    
+    private StatementCache statementCache;
+    
+    @BeforeEach
+    void setUp() {
+        statementCache = new StatementCache(accountRepository, movementRepository, customerProjectionService,
+                new SimpleMeterRegistry(), 1000, 100, Duration.ofMinutes(5));
+        when(accountRepository.findByCustomerId(1L)).thenAnswer(invocation -> Flux.just(Account.builder()
+                .id(10L)
+                .accountNumber("1234567890")
+                .accountType("SAVINGS")
+                .initialBalance(new BigDecimal("1000.00"))
+                .currentBalance(new BigDecimal("900.00"))
+                .status(true)
+                .customerId(1L)
+                .createdAt(JAN_1.minusDays(10))
+                .build()));
+    }
+    
+    @Test
+    void testGetStatement_CachedRangeIsServedWithoutQueries() {
+        // Given
+        givenCustomer("Jose Lema");
+        when(movementRepository.findClientMovements(1L, JAN_1, JAN_31))
+                .thenReturn(Flux.just(movement(100L, JAN_1.plusDays(5))));
+        
+        // When
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        
+        // Then
+        StepVerifier.create(statementCache.getStatement(1L, JAN_1.plusDays(1), JAN_31))
+                .assertNext(statement -> {
+                    assertEquals("Jose Lema", statement.customerName());
+                    assertEquals(1, statement.rows().size());
+                    assertEquals(100L, statement.rows().get(0).getMovementId());
+                })
+                .verifyComplete();
+        verify(customerProjectionService, times(1)).getCustomer(1L);
+        verify(movementRepository, times(1)).findClientMovements(any(), any(), any());
+    }
+    
+    @Test
+    void testGetStatement_ExtendedRangeQueriesOnlyTheMissingSegment() {
+        // Given
+        givenCustomer("Jose Lema");
+        when(movementRepository.findClientMovements(1L, JAN_1, JAN_31))
+                .thenReturn(Flux.just(movement(100L, JAN_1.plusDays(5))));
+        when(movementRepository.findClientMovements(1L, JAN_31, FEB_28))
+                .thenReturn(Flux.just(movement(101L, JAN_31.plusDays(3))));
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        
+        // When / Then
+        StepVerifier.create(statementCache.getStatement(1L, JAN_1, FEB_28))
+                .assertNext(statement -> assertEquals(2, statement.rows().size()))
+                .verifyComplete();
+        verify(customerProjectionService, times(1)).getCustomer(1L);
+        verify(movementRepository).findClientMovements(1L, JAN_31, FEB_28);
+    }
+    
+    @Test
+    void testInvalidateMovement_ReloadsAffectedRange() {
+        // Given
+        givenCustomer("Jose Lema");
+        when(movementRepository.findClientMovements(1L, JAN_1, JAN_31))
+                .thenReturn(Flux.just(movement(100L, JAN_1.plusDays(5))))
+                .thenReturn(Flux.just(movement(100L, JAN_1.plusDays(5)), movement(102L, JAN_1.plusDays(6))));
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        
+        // When
+        statementCache.invalidateMovement(10L, JAN_1.plusDays(6));
+        
+        // Then
+        StepVerifier.create(statementCache.getStatement(1L, JAN_1, JAN_31))
+                .assertNext(statement -> assertEquals(102L, statement.rows().get(0).getMovementId()))
+                .verifyComplete();
+        verify(movementRepository, times(2)).findClientMovements(1L, JAN_1, JAN_31);
+    }
+    
+    @Test
+    void testInvalidateMovement_DuringFirstLoadIsNotLost() {
+        // Given: el movimiento se registra mientras se consulta por primera vez al cliente, cuando aún no
+        // se sabe a qué cliente pertenece la cuenta
+        givenCustomer("Jose Lema");
+        when(movementRepository.findClientMovements(1L, JAN_1, JAN_31))
+                .thenReturn(Flux.defer(() -> {
+                    statementCache.invalidateMovement(10L, JAN_1.plusDays(6));
+                    return Flux.just(movement(100L, JAN_1.plusDays(5)));
+                }))
+                .thenReturn(Flux.just(movement(100L, JAN_1.plusDays(5)), movement(102L, JAN_1.plusDays(6))));
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        
+        // When & Then: el resultado de la primera consulta no se guardó
+        StepVerifier.create(statementCache.getStatement(1L, JAN_1, JAN_31))
+                .assertNext(statement -> assertEquals(2, statement.rows().size()))
+                .verifyComplete();
+        verify(movementRepository, times(2)).findClientMovements(1L, JAN_1, JAN_31);
+    }
+    
+    @Test
+    void testInvalidateClient_ReloadsAndCachesAgain() {
+        // Given
+        givenCustomer("Jose Lema");
+        when(movementRepository.findClientMovements(1L, JAN_1, JAN_31))
+                .thenReturn(Flux.just(movement(100L, JAN_1.plusDays(5))));
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        
+        // When
+        statementCache.invalidateClient(1L);
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        
+        // Then
+        verify(customerProjectionService, times(2)).getCustomer(1L);
+        verify(movementRepository, times(2)).findClientMovements(1L, JAN_1, JAN_31);
+    }
+    
+    @Test
+    void testGetStatement_FallbackCustomerNameIsNotCached() {
+        // Given
+        givenCustomer(CustomerClientService.UNAVAILABLE_CUSTOMER_NAME);
+        when(movementRepository.findClientMovements(eq(1L), any(), any())).thenReturn(Flux.empty());
+        
+        // When
+        statementCache.getStatement(1L, JAN_1, JAN_31).block();
+        StatementRow placeholder = statementCache.getStatement(1L, JAN_1, JAN_31).block().rows().get(0);
+        
+        // Then
+        assertEquals(10L, placeholder.getAccountId());
+        verify(customerProjectionService, times(2)).getCustomer(1L);
+    }
+    
+    private void givenCustomer(String name) {
+        when(customerProjectionService.getCustomer(1L))
+                .thenReturn(Mono.just(CustomerInfoDto.builder().id(1L).name(name).build()));
+    }
+    
+    private Movement movement(Long id, LocalDateTime date) {
+        return Movement.builder()
+                .id(id)
+                .accountId(10L)
+                .movementDate(date)
+                .movementType("DEBIT")
+                .value(new BigDecimal("50.00"))
+                .balance(new BigDecimal("950.00"))
+                .build();
+    }
+}
@@ -1,38 +1,38 @@
 package org.example.customerservice.config;
 
-import org.apache.kafka.clients.producer.ProducerConfig;
-import org.apache.kafka.common.serialization.StringSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.example.customerservice.dto.CustomerEventDto;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import reactor.kafka.sender.MicrometerProducerListener;
 import reactor.kafka.sender.SenderOptions;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
     
-    @Value("${spring.kafka.bootstrap-servers}")
-    private String bootstrapServers;
-    
+    // Serializadores, acks, lotes (batch-size, linger.ms) y compresión salen de spring.kafka.producer.*,
+    // así que cada entorno los ajusta sin tocar código. Las métricas del productor (kafka.producer.*)
+    // se registran en Micrometer y se ven en /actuator/metrics
     @Bean
-    public ReactiveKafkaProducerTemplate<String, CustomerEventDto> reactiveKafkaProducerTemplate() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        props.put(ProducerConfig.ACKS_CONFIG, "all");
-        props.put(ProducerConfig.RETRIES_CONFIG, 3);
+    public ReactiveKafkaProducerTemplate<String, CustomerEventDto> reactiveKafkaProducerTemplate(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            MeterRegistry meterRegistry,
+            @Value("${customer.outbox.max-in-flight:1024}") int maxInFlight) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
         
         SenderOptions<String, CustomerEventDto> senderOptions = 
                 SenderOptions.<String, CustomerEventDto>create(props)
-                        .maxInFlight(1024);
+                        .maxInFlight(maxInFlight)
+                        .producerListener(new MicrometerProducerListener(meterRegistry));
         
         return new ReactiveKafkaProducerTemplate<>(senderOptions);
     }
 }
-
@@ -13,11 +13,14 @@ import org.example.customerservice.dto.CustomerRequestDto;
 import org.example.customerservice.dto.CustomerUpdateDto;
 import org.example.customerservice.service.CustomerService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/customers")
@@ -53,8 +56,8 @@ public class CustomerController {
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     
-    @GetMapping
-    @Operation(summary = "Get all customers", description = "Retrieves all customers")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @Operation(summary = "Get all customers", description = "Retrieves all customers. Send Accept: application/x-ndjson or text/event-stream to stream them one by one")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Customers retrieved successfully")
     })
@@ -63,6 +66,18 @@ public class CustomerController {
         return Mono.just(ResponseEntity.ok(customerService.getAllCustomers()));
     }
     
+    @GetMapping(params = "ids", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Get customers by IDs", description = "Retrieves several customers in one request, e.g. ?ids=1,2,3. IDs that do not exist are omitted from the response")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Customers retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs requested")
+    })
+    public Mono<ResponseEntity<Flux<CustomerDto>>> getCustomersByIds(
+            @Parameter(description = "Comma-separated customer IDs") @RequestParam List<Long> ids) {
+        log.info("GET /api/v1/customers?ids - Fetching {} customers", ids.size());
+        return Mono.just(ResponseEntity.ok(customerService.getCustomersByIds(ids)));
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update customer", description = "Updates an existing customer. Only ID is required, all other fields are optional. Only provided fields will be updated.")
     @ApiResponses(value = {
@@ -20,6 +20,13 @@ public class CustomerEventDto {
     @JsonProperty("person_id")
     private Long personId;
     
+    // Nombre y estado actuales, para que los consumidores mantengan su propia proyección del cliente
+    @JsonProperty("name")
+    private String name;
+    
+    @JsonProperty("status")
+    private Boolean status;
+    
     @JsonProperty("timestamp")
     private Long timestamp;
 }
\ No newline at end of file
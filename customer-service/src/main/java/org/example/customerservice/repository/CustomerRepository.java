@@ -16,6 +16,9 @@ public interface CustomerRepository extends ReactiveCrudRepository<Customer, Lon
     @Query("SELECT c.id, c.person_id, c.password, c.status, c.created_at, c.updated_at FROM customers c WHERE c.status = :status")
     Flux<Customer> findByStatus(Boolean status);
     
+    @Query("SELECT c.id, c.person_id, c.password, c.status, c.created_at, c.updated_at FROM customers c WHERE c.id = ANY(:ids)")
+    Flux<Customer> findAllByIdIn(Long[] ids);
+    
     @Query("SELECT c.id, c.person_id, c.password, c.status, c.created_at, c.updated_at FROM customers c WHERE c.person_id = :personId")
     Mono<Customer> findByPersonId(Long personId);
 }
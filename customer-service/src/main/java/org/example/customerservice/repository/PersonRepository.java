@@ -4,6 +4,7 @@ import org.example.customerservice.entity.Person;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
@@ -14,5 +15,8 @@ public interface PersonRepository extends ReactiveCrudRepository<Person, Long> {
     
     @Query("SELECT id, name, gender, identification, address, phone, created_at, updated_at FROM persons WHERE id = :id")
     Mono<Person> findById(Long id);
+    
+    @Query("SELECT id, name, gender, identification, address, phone, created_at, updated_at FROM persons WHERE id = ANY(:ids)")
+    Flux<Person> findAllByIdIn(Long[] ids);
 }
 
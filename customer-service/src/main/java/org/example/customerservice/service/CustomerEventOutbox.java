@@ -0,0 +1,54 @@
+package org.example.customerservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.customerservice.dto.CustomerEventDto;
+import org.example.customerservice.entity.Customer;
+import org.example.customerservice.entity.Person;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Outbox de customer-events: el evento se guarda en customer_event_outbox dentro de la misma transacción
+ * que el cambio del cliente, así que solo existe si el cambio se confirmó. CustomerEventOutboxRelay
+ * lo publica después en Kafka.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomerEventOutbox {
+    
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+    
+    // Debe llamarse dentro de la cadena transaccional del cambio, nunca con un subscribe() aparte
+    public Mono<Void> record(String eventType, Customer customer, Person person) {
+        return Mono.defer(() -> {
+            log.info("Recording customer event: {} for customer ID: {}", eventType, customer.getId());
+            CustomerEventDto event = CustomerEventDto.builder()
+                    .eventType(eventType)
+                    .customerId(customer.getId())
+                    .personId(customer.getPersonId())
+                    .name(person != null ? person.getName() : null)
+                    .status(customer.getStatus())
+                    .timestamp(System.currentTimeMillis())
+                    .build();
+            return databaseClient.sql("INSERT INTO customer_event_outbox (customer_id, event_type, payload) VALUES (:customerId, :eventType, :payload)")
+                    .bind("customerId", customer.getId())
+                    .bind("eventType", eventType)
+                    .bind("payload", toJson(event))
+                    .then();
+        });
+    }
+    
+    private String toJson(CustomerEventDto event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize customer event for customer ID: " + event.getCustomerId(), e);
+        }
+    }
+}
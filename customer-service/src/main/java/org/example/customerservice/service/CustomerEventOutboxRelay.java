@@ -0,0 +1,180 @@
+package org.example.customerservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.example.customerservice.dto.CustomerEventDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Publica en Kafka los eventos de customer_event_outbox, con el id del cliente como clave para que todos
+ * los eventos de un cliente vayan a la misma partición y se consuman en orden. Solo una instancia drena
+ * la tabla a la vez (advisory lock de la transacción): con varias en paralelo dos eventos del mismo
+ * cliente podrían publicarse en desorden. Cada lote se toma por id, se envía completo al productor y se
+ * borra en la misma transacción. Si el envío falla la transacción se revierte y el lote se reintenta en
+ * la siguiente vuelta: la entrega es al menos una vez.
+ */
+@Slf4j
+@Component
+public class CustomerEventOutboxRelay {
+    
+    private static final String TOPIC = "customer-events";
+    
+    // Clave del advisory lock que serializa el relay entre instancias; se libera al terminar la transacción
+    private static final long RELAY_LOCK_KEY = 0x637573745f6f7574L;
+    
+    // La antigüedad se calcula en la base de datos, con el mismo reloj que asignó created_at
+    private static final String CLAIM_BATCH_SQL = """
+            SELECT id, customer_id, payload,
+                   CAST(EXTRACT(EPOCH FROM (clock_timestamp()::timestamp - created_at)) * 1000 AS BIGINT) AS age_ms
+            FROM customer_event_outbox
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE
+            """;
+    
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ReactiveKafkaProducerTemplate<String, CustomerEventDto> kafkaProducerTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final boolean enabled;
+    private final DistributionSummary batchSizes;
+    private final Timer publishLag;
+    private final Counter published;
+    private Disposable relay;
+    
+    public CustomerEventOutboxRelay(DatabaseClient databaseClient,
+                                    TransactionalOperator transactionalOperator,
+                                    ReactiveKafkaProducerTemplate<String, CustomerEventDto> kafkaProducerTemplate,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${customer.outbox.batch-size:500}") int batchSize,
+                                    @Value("${customer.outbox.poll-interval:200ms}") Duration pollInterval,
+                                    @Value("${customer.outbox.relay-enabled:true}") boolean enabled) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.kafkaProducerTemplate = kafkaProducerTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.enabled = enabled;
+        this.batchSizes = DistributionSummary.builder("customer.outbox.batch.size").register(meterRegistry);
+        this.publishLag = Timer.builder("customer.outbox.lag")
+                .description("Time from the customer change to the event being published")
+                .register(meterRegistry);
+        this.published = Counter.builder("customer.outbox.published").register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Starting customer event outbox relay with batch size {} every {}", batchSize, pollInterval);
+        // Las vueltas no se solapan: un tick que llega mientras se drena se descarta
+        relay = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> drain()
+                        .onErrorResume(error -> {
+                            log.error("Error relaying customer events: {}", error.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (relay != null) {
+            relay.dispose();
+        }
+    }
+    
+    // Publica lotes mientras salgan completos, para vaciar rápido una acumulación
+    public Mono<Long> drain() {
+        return relayBatch()
+                .expand(count -> count == batchSize ? relayBatch() : Mono.empty())
+                .reduce(0L, Long::sum);
+    }
+    
+    // Si otra instancia tiene el lock no se publica nada en esta vuelta
+    private Mono<Integer> relayBatch() {
+        return transactionalOperator.transactional(databaseClient.sql("SELECT pg_try_advisory_xact_lock(:key) AS locked")
+                        .bind("key", RELAY_LOCK_KEY)
+                        .map(row -> row.get("locked", Boolean.class))
+                        .one()
+                        .filter(Boolean::booleanValue)
+                        .flatMap(locked -> claimAndPublish()))
+                .defaultIfEmpty(0);
+    }
+    
+    private Mono<Integer> claimAndPublish() {
+        long claimedAt = System.nanoTime();
+        return databaseClient.sql(CLAIM_BATCH_SQL)
+                .bind("limit", batchSize)
+                .map(row -> new OutboxEvent(
+                        row.get("id", Long.class),
+                        row.get("customer_id", Long.class),
+                        row.get("payload", String.class),
+                        row.get("age_ms", Long.class)))
+                .all()
+                .collectList()
+                .flatMap(events -> events.isEmpty() ? Mono.just(0) : publish(events, claimedAt));
+    }
+    
+    private Mono<Integer> publish(List<OutboxEvent> events, long claimedAt) {
+        Flux<SenderRecord<String, CustomerEventDto, Long>> records = Flux.fromIterable(events)
+                .map(event -> SenderRecord.create(new ProducerRecord<>(TOPIC, String.valueOf(event.customerId()), fromJson(event.payload())), event.id()));
+        Long[] ids = events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+        return kafkaProducerTemplate.send(records)
+                .doOnNext(result -> {
+                    if (result.exception() != null) {
+                        throw new IllegalStateException("Customer event " + result.correlationMetadata() + " was not published", result.exception());
+                    }
+                })
+                .then(databaseClient.sql("DELETE FROM customer_event_outbox WHERE id = ANY(:ids)")
+                        .bind("ids", ids)
+                        .then())
+                .then(Mono.fromRunnable(() -> record(events, claimedAt)))
+                .thenReturn(events.size());
+    }
+    
+    // Demora = antigüedad al tomar el lote (reloj de la base de datos) + tiempo de publicación (reloj local)
+    private void record(List<OutboxEvent> events, long claimedAt) {
+        Duration publishTime = Duration.ofNanos(System.nanoTime() - claimedAt);
+        events.forEach(event -> publishLag.record(Duration.ofMillis(Math.max(event.ageMillis(), 0)).plus(publishTime)));
+        batchSizes.record(events.size());
+        published.increment(events.size());
+        log.debug("Published {} customer events from the outbox", events.size());
+    }
+    
+    private CustomerEventDto fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, CustomerEventDto.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read customer event from the outbox", e);
+        }
+    }
+    
+    private record OutboxEvent(Long id, Long customerId, String payload, long ageMillis) {
+    }
+}
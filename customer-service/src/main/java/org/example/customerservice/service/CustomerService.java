@@ -12,14 +12,14 @@ import org.example.customerservice.mapper.CustomerMapper;
 import org.example.customerservice.mapper.PersonMapper;
 import org.example.customerservice.repository.CustomerRepository;
 import org.example.customerservice.repository.PersonRepository;
-import org.example.customerservice.dto.CustomerEventDto;
-import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -30,7 +30,13 @@ public class CustomerService {
     private final PersonRepository personRepository;
     private final PersonMapper personMapper;
     private final CustomerMapper customerMapper;
-    private final ReactiveKafkaProducerTemplate<String, CustomerEventDto> kafkaProducerTemplate;
+    private final CustomerEventOutbox customerEventOutbox;
+    
+    // Búsquedas de persona en paralelo al listar; acota la demanda hacia la base de datos y conserva el orden
+    private static final int PERSON_LOOKUP_CONCURRENCY = 16;
+    
+    // Máximo de ids por consulta en lote (GET /api/v1/customers?ids=...)
+    private static final int MAX_BATCH_IDS = 500;
     
     @Transactional
     public Mono<CustomerDto> createCustomer(CustomerRequestDto requestDto) {
@@ -93,15 +99,9 @@ public class CustomerService {
                                     });
                         })
                 )
-                .doOnSuccess(savedCustomer -> 
-                    sendCustomerEvent("CREATED", savedCustomer.getId(), savedCustomer.getPersonId())
-                            .subscribe(
-                                    null,
-                                    error -> log.error("Error sending customer event (non-blocking): {}", error.getMessage())
-                            )
-                )
                 .flatMap(customer -> 
                     personRepository.findById(customer.getPersonId())
+                            .flatMap(person -> customerEventOutbox.record("CREATED", customer, person).thenReturn(person))
                             .map(person -> CustomerDto.builder()
                                     .id(customer.getId())
                                     .name(person.getName())
@@ -133,14 +133,42 @@ public class CustomerService {
     public Flux<CustomerDto> getAllCustomers() {
         log.info("Fetching all active customers (status = true)");
         return customerRepository.findByStatus(true)
-                .flatMap(customer -> 
+                .flatMapSequential(customer -> 
                     personRepository.findById(customer.getPersonId())
                             .map(person -> buildCustomerDto(customer, person))
-                            .switchIfEmpty(Mono.just(buildCustomerDtoWithoutPerson(customer)))
+                            .switchIfEmpty(Mono.just(buildCustomerDtoWithoutPerson(customer))),
+                    PERSON_LOOKUP_CONCURRENCY
                 )
                 .doOnError(error -> log.error("Error fetching customers: {}", error.getMessage()));
     }
     
+    // Dos consultas en total (clientes y personas con = ANY) sin importar cuántos ids se pidan;
+    // los ids que no existen simplemente no aparecen en la respuesta
+    public Flux<CustomerDto> getCustomersByIds(List<Long> ids) {
+        Long[] distinctIds = ids.stream().filter(Objects::nonNull).distinct().toArray(Long[]::new);
+        if (distinctIds.length == 0) {
+            return Flux.empty();
+        }
+        if (distinctIds.length > MAX_BATCH_IDS) {
+            return Flux.error(new IllegalArgumentException("At most " + MAX_BATCH_IDS + " customer IDs can be requested at once"));
+        }
+        log.info("Fetching {} customers by ID", distinctIds.length);
+        return customerRepository.findAllByIdIn(distinctIds)
+                .collectList()
+                .flatMapMany(customers -> {
+                    Long[] personIds = customers.stream().map(Customer::getPersonId).filter(Objects::nonNull).distinct().toArray(Long[]::new);
+                    return personRepository.findAllByIdIn(personIds)
+                            .collectMap(Person::getId)
+                            .flatMapIterable(persons -> customers.stream()
+                                    .map(customer -> {
+                                        Person person = persons.get(customer.getPersonId());
+                                        return person != null ? buildCustomerDto(customer, person) : buildCustomerDtoWithoutPerson(customer);
+                                    })
+                                    .toList());
+                })
+                .doOnError(error -> log.error("Error fetching customers by ID: {}", error.getMessage()));
+    }
+    
     @Transactional
     public Mono<CustomerDto> updateCustomer(Long id, CustomerUpdateDto updateDto) {
         log.info("Updating customer with ID: {}", id);
@@ -177,15 +205,9 @@ public class CustomerService {
                                 
                                 return personRepository.save(existingPerson)
                                         .then(customerRepository.save(existingCustomer))
-                                        .flatMap(updated -> {
-                                            sendCustomerEvent("UPDATED", updated.getId(), updated.getPersonId())
-                                                    .subscribe(
-                                                            null,
-                                                            error -> log.error("Error sending customer event (non-blocking): {}", error.getMessage())
-                                                    );
-                                            return personRepository.findById(updated.getPersonId())
-                                                    .map(person -> buildCustomerDto(updated, person));
-                                        });
+                                        .flatMap(updated -> customerEventOutbox.record("UPDATED", updated, existingPerson)
+                                                .then(personRepository.findById(updated.getPersonId()))
+                                                .map(person -> buildCustomerDto(updated, person)));
                             });
                 })
                 .doOnSuccess(c -> log.info("Customer updated successfully with ID: {}", c.getId()))
@@ -199,35 +221,12 @@ public class CustomerService {
                 .switchIfEmpty(Mono.error(new RuntimeException("Customer not found with ID: " + id)))
                 .flatMap(customer -> 
                     customerRepository.delete(customer)
-                            .doOnSuccess(v -> 
-                                sendCustomerEvent("DELETED", customer.getId(), customer.getId())
-                                        .subscribe(
-                                                null,
-                                                error -> log.error("Error sending customer event (non-blocking): {}", error.getMessage())
-                                        )
-                            )
+                            .then(customerEventOutbox.record("DELETED", customer, null))
                 )
                 .doOnSuccess(v -> log.info("Customer deleted successfully with ID: {}", id))
                 .doOnError(error -> log.error("Error deleting customer: {}", error.getMessage()));
     }
     
-    private Mono<Void> sendCustomerEvent(String eventType, Long customerId, Long personId) {
-        log.info("Sending customer event: {} for customer ID: {}", eventType, customerId);
-        return kafkaProducerTemplate.send("customer-events", 
-                CustomerEventDto.builder()
-                        .eventType(eventType)
-                        .customerId(customerId)
-                        .personId(personId)
-                        .timestamp(System.currentTimeMillis())
-                        .build())
-                .then()
-                .timeout(java.time.Duration.ofSeconds(5))
-                .onErrorResume(error -> {
-                    log.error("Error sending customer event (will not block operation): {}", error.getMessage());
-                    return Mono.empty(); // Return empty to not block
-                });
-    }
-    
     private CustomerDto buildCustomerDto(Customer customer, Person person) {
         return CustomerDto.builder()
                 .id(customer.getId())
@@ -31,3 +31,13 @@ CREATE TABLE IF NOT EXISTS customers (
 CREATE INDEX IF NOT EXISTS idx_customers_identification ON customers(identification);
 CREATE INDEX IF NOT EXISTS idx_persons_identification ON persons(identification);
 
+
+-- Outbox de customer-events: se escribe en la misma transacción que el cambio del cliente y
+-- CustomerEventOutboxRelay lo publica en Kafka y borra las filas publicadas
+CREATE TABLE IF NOT EXISTS customer_event_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
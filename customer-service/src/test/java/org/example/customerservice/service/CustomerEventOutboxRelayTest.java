@@ -0,0 +1,175 @@
+package org.example.customerservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Row;
+import org.example.customerservice.dto.CustomerEventDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerEventOutboxRelayTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final List<SenderRecord<String, CustomerEventDto, Long>> sent = new CopyOnWriteArrayList<>();
+    private final List<Object> deletedIds = new CopyOnWriteArrayList<>();
+    private boolean lockAcquired;
+    private RuntimeException sendFailure;
+    private List<Object[]> outboxRows;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerEventOutboxRelay relay;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        lockAcquired = true;
+        sendFailure = null;
+        outboxRows = List.of(
+                new Object[]{1L, 10L, payload("CREATED", 10L), 1500L},
+                new Object[]{2L, 20L, payload("CREATED", 20L), 1200L},
+                new Object[]{3L, 10L, payload("UPDATED", 10L), 900L});
+        meterRegistry = new SimpleMeterRegistry();
+        DatabaseClient databaseClient = mock(DatabaseClient.class);
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ReactiveKafkaProducerTemplate<String, CustomerEventDto> kafkaProducerTemplate = mock(ReactiveKafkaProducerTemplate.class);
+        when(kafkaProducerTemplate.send(any(Publisher.class))).thenAnswer(invocation -> {
+            Publisher<SenderRecord<String, CustomerEventDto, Long>> records = invocation.getArgument(0);
+            return Flux.from(records)
+                    .doOnNext(sent::add)
+                    .map(record -> {
+                        SenderResult<Long> result = mock(SenderResult.class);
+                        when(result.correlationMetadata()).thenReturn(record.correlationMetadata());
+                        when(result.exception()).thenReturn(sendFailure);
+                        return result;
+                    });
+        });
+        relay = new CustomerEventOutboxRelay(databaseClient, transactionalOperator, kafkaProducerTemplate, objectMapper,
+                meterRegistry, 500, Duration.ofMillis(200), false);
+    }
+    
+    @Test
+    void testDrain_PublishesInOrderKeyedByCustomerAndDeletes() {
+        // When & Then
+        StepVerifier.create(relay.drain())
+                .expectNext(3L)
+                .verifyComplete();
+        assertEquals(List.of("10", "20", "10"), sent.stream().map(SenderRecord::key).toList());
+        assertEquals(List.of("CREATED", "CREATED", "UPDATED"), sent.stream().map(record -> record.value().getEventType()).toList());
+        assertEquals(1, deletedIds.size());
+        assertArrayEquals(new Long[]{1L, 2L, 3L}, (Long[]) deletedIds.get(0));
+        assertEquals(3.0, meterRegistry.get("customer.outbox.published").counter().count());
+    }
+    
+    @Test
+    void testDrain_LagStartsFromAgeComputedByTheDatabase() {
+        // When
+        relay.drain().block(Duration.ofSeconds(5));
+        
+        // Then: la demora registrada nunca es menor que la antigüedad leída al tomar el lote
+        double maxLagMillis = meterRegistry.get("customer.outbox.lag").timer().max(TimeUnit.MILLISECONDS);
+        assertTrue(maxLagMillis >= 1500, "lag was " + maxLagMillis);
+        assertTrue(statements.stream().anyMatch(sql -> sql.contains("clock_timestamp()")));
+    }
+    
+    @Test
+    void testDrain_SkipsWhenAnotherInstanceHoldsTheLock() {
+        // Given
+        lockAcquired = false;
+        
+        // When & Then
+        StepVerifier.create(relay.drain())
+                .expectNext(0L)
+                .verifyComplete();
+        assertTrue(statements.stream().noneMatch(sql -> sql.contains("FROM customer_event_outbox")));
+        assertTrue(sent.isEmpty());
+    }
+    
+    @Test
+    void testDrain_FailedSendKeepsEventsInTheOutbox() {
+        // Given
+        sendFailure = new IllegalStateException("broker unavailable");
+        
+        // When & Then
+        StepVerifier.create(relay.drain())
+                .expectErrorMessage("Customer event 1 was not published")
+                .verify();
+        assertTrue(deletedIds.isEmpty());
+    }
+    
+    private String payload(String eventType, Long customerId) throws Exception {
+        return objectMapper.writeValueAsString(CustomerEventDto.builder()
+                .eventType(eventType)
+                .customerId(customerId)
+                .status(true)
+                .build());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement(String sql) {
+        statements.add(sql);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        if (sql.contains("pg_try_advisory_xact_lock")) {
+            RowsFetchSpec<Boolean> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                Function<Row, Boolean> mapper = invocation.getArgument(0);
+                Row row = mock(Row.class);
+                when(row.get("locked", Boolean.class)).thenReturn(lockAcquired);
+                Boolean locked = mapper.apply(row);
+                when(fetch.one()).thenReturn(Mono.just(locked));
+                return fetch;
+            });
+        } else if (sql.startsWith("DELETE")) {
+            List<Object> ids = new CopyOnWriteArrayList<>();
+            when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+                ids.add(invocation.getArgument(1));
+                return spec;
+            });
+            when(spec.then()).thenReturn(Mono.fromRunnable(() -> deletedIds.addAll(ids)));
+        } else {
+            RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+            when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+                Function<Row, Object> mapper = invocation.getArgument(0);
+                List<Object> events = outboxRows.stream()
+                        .map(values -> {
+                            Row row = mock(Row.class);
+                            when(row.get("id", Long.class)).thenReturn((Long) values[0]);
+                            when(row.get("customer_id", Long.class)).thenReturn((Long) values[1]);
+                            when(row.get("payload", String.class)).thenReturn((String) values[2]);
+                            when(row.get("age_ms", Long.class)).thenReturn((Long) values[3]);
+                            return mapper.apply(row);
+                        })
+                        .toList();
+                when(fetch.all()).thenReturn(Flux.fromIterable(events));
+                return fetch;
+            });
+        }
+        return spec;
+    }
+}
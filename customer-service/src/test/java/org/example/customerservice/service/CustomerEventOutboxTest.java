@@ -0,0 +1,88 @@
+package org.example.customerservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.customerservice.dto.CustomerEventDto;
+import org.example.customerservice.entity.Customer;
+import org.example.customerservice.entity.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerEventOutboxTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Object> binds = new ConcurrentHashMap<>();
+    private DatabaseClient databaseClient;
+    private CustomerEventOutbox customerEventOutbox;
+    
+    @BeforeEach
+    void setUp() {
+        databaseClient = mock(DatabaseClient.class);
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, RETURNS_SELF);
+        when(spec.bind(anyString(), any())).thenAnswer(invocation -> {
+            binds.put(invocation.getArgument(0), invocation.getArgument(1));
+            return spec;
+        });
+        when(spec.then()).thenReturn(Mono.empty());
+        when(databaseClient.sql(anyString())).thenReturn(spec);
+        customerEventOutbox = new CustomerEventOutbox(databaseClient, objectMapper);
+    }
+    
+    @Test
+    void testRecord_StoresEventPayload() throws Exception {
+        // Given
+        Customer customer = Customer.builder().id(10L).personId(5L).status(true).build();
+        Person person = Person.builder().name("Jose Lema").build();
+        
+        // When & Then
+        StepVerifier.create(customerEventOutbox.record("UPDATED", customer, person))
+                .verifyComplete();
+        assertEquals(10L, binds.get("customerId"));
+        assertEquals("UPDATED", binds.get("eventType"));
+        CustomerEventDto event = objectMapper.readValue((String) binds.get("payload"), CustomerEventDto.class);
+        assertEquals(10L, event.getCustomerId());
+        assertEquals(5L, event.getPersonId());
+        assertEquals("Jose Lema", event.getName());
+        assertEquals(true, event.getStatus());
+    }
+    
+    @Test
+    void testRecord_DeletedEventWithoutPerson() throws Exception {
+        // Given
+        Customer customer = Customer.builder().id(20L).status(false).build();
+        
+        // When & Then
+        StepVerifier.create(customerEventOutbox.record("DELETED", customer, null))
+                .verifyComplete();
+        CustomerEventDto event = objectMapper.readValue((String) binds.get("payload"), CustomerEventDto.class);
+        assertEquals("DELETED", event.getEventType());
+        assertNull(event.getName());
+    }
+    
+    @Test
+    void testRecord_NothingIsWrittenUntilSubscribed() {
+        // Given
+        Customer customer = Customer.builder().id(30L).build();
+        
+        // When: la escritura forma parte de la cadena transaccional del cambio
+        customerEventOutbox.record("CREATED", customer, null);
+        
+        // Then
+        verify(databaseClient, never()).sql(anyString());
+    }
+}